@@ -0,0 +1,205 @@
+package com.udemylite.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small in-process LRU cache with a size bound, a per-entry TTL and hit/miss/eviction counters.
+ *
+ * Concurrent misses for the same key are collapsed: one caller runs the loader and the others
+ * wait for its result. A load that races with an invalidation of its own key (or an invalidateIf
+ * matching the loaded value) is returned to its callers but not stored, so an invalidation can
+ * never be undone by a slow loader; loads of other keys are unaffected.
+ */
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final ConcurrentHashMap<K, Load<K, V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public BoundedCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+
+        Load<K, V> mine = new Load<>();
+        Load<K, V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return join(existing.future);
+        }
+
+        try {
+            V value = loader.apply(key);
+            if (value != null) {
+                synchronized (entries) {
+                    if (!mine.isStale(key, value)) {
+                        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                    }
+                }
+            }
+            mine.future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() < 0) {
+                entries.remove(key);
+                expirations.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    // Like getIfPresent, but for maintenance paths: does not count as a hit
+    public V peek(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry == null || entry.expiresAt - System.nanoTime() < 0 ? null : entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+            // Later misses start a fresh load instead of joining the stale one
+            Load<K, V> load = inFlight.remove(key);
+            if (load != null) {
+                load.invalidated = true;
+            }
+        }
+    }
+
+    public void invalidateIf(BiPredicate<K, V> predicate) {
+        synchronized (entries) {
+            // In-flight values aren't known yet, so they are checked when the load stores them
+            for (Load<K, V> load : inFlight.values()) {
+                load.predicates.add(predicate);
+            }
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> e = it.next();
+                if (predicate.test(e.getKey(), e.getValue().value)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            for (Load<K, V> load : inFlight.values()) {
+                load.invalidated = true;
+            }
+            inFlight.clear();
+        }
+    }
+
+    // Sum of a per-value measure (e.g. bytes) over the current entries
+    public long sum(ToLongFunction<V> measure) {
+        synchronized (entries) {
+            long total = 0;
+            for (Entry<V> entry : entries.values()) {
+                total += measure.applyAsLong(entry.value);
+            }
+            return total;
+        }
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(name, size, maxSize, hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    // A running load and the invalidations that arrived while it ran; fields guarded by entries
+    private static final class Load<K, V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final List<BiPredicate<K, V>> predicates = new ArrayList<>();
+        boolean invalidated;
+
+        boolean isStale(K key, V value) {
+            if (invalidated) {
+                return true;
+            }
+            for (BiPredicate<K, V> predicate : predicates) {
+                if (predicate.test(key, value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
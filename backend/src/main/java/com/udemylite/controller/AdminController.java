@@ -0,0 +1,133 @@
+package com.udemylite.controller;
+
+import com.udemylite.cache.CacheStats;
+import com.udemylite.dto.MediaUsage;
+import com.udemylite.media.BlobStore;
+import com.udemylite.outbox.OutboxRelay;
+import com.udemylite.search.CourseSearchIndex;
+import com.udemylite.security.AccountStatusCache;
+import com.udemylite.security.JwtUtil;
+import com.udemylite.security.PasswordHasher;
+import com.udemylite.security.RateLimitFilter;
+import com.udemylite.service.CourseRatingService;
+import com.udemylite.service.CourseCatalogCache;
+import com.udemylite.service.EnrollmentMembershipIndex;
+import com.udemylite.service.LessonProgressService;
+import com.udemylite.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private CourseCatalogCache courseCatalogCache;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private CourseRatingService courseRatingService;
+
+    @Autowired
+    private EnrollmentMembershipIndex membershipIndex;
+
+    @Autowired
+    private LessonProgressService progressService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountStatusCache accountStatusCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @GetMapping("/metrics/caches")
+    public ResponseEntity<List<CacheStats>> getCacheStats() {
+        List<CacheStats> stats = new ArrayList<>(courseCatalogCache.stats());
+        stats.add(membershipIndex.cacheStats());
+        stats.add(accountStatusCache.stats());
+        stats.add(jwtUtil.verifiedTokenStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/metrics/enrollment-index")
+    public ResponseEntity<Map<String, Object>> getEnrollmentIndexStats() {
+        return ResponseEntity.ok(membershipIndex.stats());
+    }
+
+    @GetMapping("/metrics/search")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        return ResponseEntity.ok(courseSearchIndex.stats());
+    }
+
+    @GetMapping("/metrics/progress")
+    public ResponseEntity<Map<String, Object>> getProgressStats() {
+        return ResponseEntity.ok(progressService.stats());
+    }
+
+    @GetMapping("/metrics/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        return ResponseEntity.ok(outboxRelay.stats());
+    }
+
+    @GetMapping("/metrics/media")
+    public ResponseEntity<MediaUsage> getMediaStats() {
+        return ResponseEntity.ok(blobStore.usage());
+    }
+
+    @GetMapping("/metrics/passwords")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordHasher.stats());
+    }
+
+    @GetMapping("/metrics/rate-limits")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimitFilter.stats());
+    }
+
+    @PostMapping("/users/{id}/disable")
+    public ResponseEntity<Map<String, Object>> disableUser(@PathVariable Long id) {
+        return ResponseEntity.ok(Map.of("id", id, "enabled", userService.setEnabled(id, false).isEnabled()));
+    }
+
+    @PostMapping("/users/{id}/enable")
+    public ResponseEntity<Map<String, Object>> enableUser(@PathVariable Long id) {
+        return ResponseEntity.ok(Map.of("id", id, "enabled", userService.setEnabled(id, true).isEnabled()));
+    }
+
+    @PostMapping("/users/{id}/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable Long id) {
+        userService.revokeTokens(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/maintenance/rating-stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRatingStats() {
+        return ResponseEntity.ok(Map.of("courses", courseRatingService.rebuildAll()));
+    }
+}
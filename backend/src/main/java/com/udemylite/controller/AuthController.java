@@ -4,28 +4,24 @@ import com.udemylite.model.User; // <-- 1. IMPORT YOUR USER MODEL
 import com.udemylite.security.JwtUtil;
 import com.udemylite.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus; // <-- 2. IMPORT THIS
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
-    @Autowired
-    private AuthenticationManager authenticationManager;
-
     @Autowired
     private UserService userService;
 
@@ -34,69 +30,94 @@ public class AuthController {
 
     /**
      * Corrected register endpoint with error handling.
+     * Hashing runs on the password pool, so the request thread is released meanwhile.
      */
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody User user) {
         try {
             // Call the service method that checks for duplicate emails
-            User newUser = userService.registerUser(user);
-            return ResponseEntity.ok(newUser);
+            return userService.registerUser(user)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        if (e.getCause() instanceof DataIntegrityViolationException) {
+                            // Another registration with this email committed first
+                            return emailInUse("Email already in use: " + user.getEmail());
+                        }
+                        if (e.getCause() instanceof RejectedExecutionException) {
+                            // No room on the task pool to save the user
+                            return busy();
+                        }
+                        return ResponseEntity
+                                .status(HttpStatus.INTERNAL_SERVER_ERROR) // 500
+                                .body("An unexpected error occurred: " + e.getMessage());
+                    });
 
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
         } catch (RuntimeException e) {
             // Catches the "Email already in use" error from the service
-            return ResponseEntity
-                    .status(HttpStatus.BAD_REQUEST) // 400
-                    .body(e.getMessage());
-        } catch (Exception e) {
-            // Catches any other unexpected errors
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR) // 500
-                    .body("An unexpected error occurred: " + e.getMessage());
+            return CompletableFuture.completedFuture(emailInUse(e.getMessage()));
         }
     }
 
 
     /**
      * Corrected login endpoint that includes roles in the JWT.
+     * The password check runs on the password pool; when that pool is saturated the login is
+     * turned away with 503 instead of tying up a request thread. Only credential failures are a
+     * 401; any other failure is rethrown and answered as a server error.
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest) {
         try {
-            // Authenticate the user
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
-            
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            
-            // Get UserDetails from the authentication object
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            
-            // Get the roles (authorities)
-            List<String> roles = userDetails.getAuthorities().stream()
-                                    .map(GrantedAuthority::getAuthority)
-                                    .collect(Collectors.toList());
-
-            // Generate the token, passing both username (email) AND roles
-            String token = jwtUtil.generateToken(userDetails.getUsername(), roles);
-            
-            // Build the response
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("message", "Login successful");
-            // You can also add user info here if needed
-            // response.put("email", userDetails.getUsername());
-            // response.put("roles", roles);
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            // Handle bad credentials or other auth errors
-            return ResponseEntity
-                    .status(HttpStatus.UNAUTHORIZED) // 401
-                    .body("Login failed: Invalid email or password");
+            return userService.authenticate(loginRequest.getEmail(), loginRequest.getPassword())
+                    .<ResponseEntity<?>>thenApply(user -> user != null ? loginSucceeded(user) : loginFailed())
+                    .exceptionally(AuthController::loginError);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
         }
     }
 
+    private ResponseEntity<?> loginSucceeded(User user) {
+        // Generate the token with the user id, username (email) AND roles
+        List<String> roles = List.of("ROLE_" + user.getRole().name());
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), roles);
+
+        // Build the response
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", token);
+        response.put("message", "Login successful");
+        return ResponseEntity.ok(response);
+    }
+
+    private static ResponseEntity<?> loginFailed() {
+        // Handle bad credentials or other auth errors
+        return ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED) // 401
+                .body("Login failed: Invalid email or password");
+    }
+
+    private static ResponseEntity<?> loginError(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof BadCredentialsException || cause instanceof UsernameNotFoundException) {
+            return loginFailed();
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return busy();
+        }
+        throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+    }
+
+    private static ResponseEntity<?> emailInUse(String message) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(message); // 409
+    }
+
+    private static ResponseEntity<?> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body("Too many sign-ins in progress, please retry");
+    }
+
     /**
      * A static inner class to map the login request JSON.
      */
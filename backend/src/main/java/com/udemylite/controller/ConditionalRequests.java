@@ -0,0 +1,32 @@
+package com.udemylite.controller;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Evaluates If-None-Match / If-Modified-Since before a body is built. When this returns true the
+ * response already carries 304 and the validators, and the handler should return null.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {}
+
+    static boolean notModified(WebRequest request, String etag, LocalDateTime lastModified) {
+        if (lastModified == null) {
+            return request.checkNotModified(etag);
+        }
+        long millis = lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified(etag, millis);
+    }
+
+    static String etag(Object... parts) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) sb.append('-');
+            sb.append(parts[i]);
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -1,14 +1,22 @@
 package com.udemylite.controller;
 
+import com.udemylite.dto.CatalogFacets;
+import com.udemylite.dto.CourseDetail;
+import com.udemylite.dto.CourseSummary;
+import com.udemylite.dto.CursorPage;
+import com.udemylite.dto.Suggestion;
 import com.udemylite.model.Course;
 import com.udemylite.model.User;
+import com.udemylite.security.CurrentUser;
+import com.udemylite.security.CurrentUserIdentity;
 import com.udemylite.service.CourseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -18,41 +26,108 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
 
-    @Autowired
-    private com.udemylite.service.UserService userService;
-
     @GetMapping
-    public ResponseEntity<List<Course>> getAllCourses() {
-        return ResponseEntity.ok(courseService.getAllCourses());
+    public ResponseEntity<?> getAllCourses(@RequestParam(required = false) String sort,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size,
+                                           @RequestParam(required = false) String category,
+                                           @RequestParam(required = false) BigDecimal minPrice,
+                                           @RequestParam(required = false) BigDecimal maxPrice) {
+        try {
+            CursorPage<CourseSummary> page = courseService.getCatalogPage(sort, cursor, size, category, minPrice, maxPrice);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            // Bad sort or a tampered/stale cursor
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<CatalogFacets> getFacets() {
+        return ResponseEntity.ok(courseService.getFacets());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCourses(@RequestParam("q") String query,
+                                           @RequestParam(required = false) Integer page,
+                                           @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(courseService.searchCourses(query, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(@RequestParam String prefix,
+                                                    @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(courseService.suggest(prefix, limit));
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrending(@RequestParam(required = false) String window,
+                                         @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(courseService.getTrending(window, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    // GET for short lists; POST takes a JSON array of ids when they don't fit in a URL
+    @GetMapping("/batch")
+    public ResponseEntity<?> getCourseBatch(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(courseService.getCourseBatch(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> postCourseBatch(@RequestBody List<Long> ids) {
+        return getCourseBatch(ids);
+    }
+
+    // view=full returns the JPA entity with its whole object graph; the default is the light read model
     @GetMapping("/{id}")
-    public ResponseEntity<Course> getCourseById(@PathVariable Long id) {
-        return ResponseEntity.ok(courseService.getCourseById(id));
+    public ResponseEntity<?> getCourseById(@PathVariable Long id, @RequestParam(required = false) String view, WebRequest request) {
+        if ("full".equals(view)) {
+            return ResponseEntity.ok(courseService.getCourseById(id));
+        }
+        // The detail comes from the cache, so a revalidation costs no database round trip.
+        // Derived fields (lesson count, ratings, instructor) do not bump the version, hence the hash.
+        CourseDetail detail = courseService.getCourseDetail(id);
+        String etag = ConditionalRequests.etag("course", detail.id(), detail.version(), Integer.toHexString(detail.hashCode()));
+        if (ConditionalRequests.notModified(request, etag, detail.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(detail);
     }
 
     @PostMapping
-    public ResponseEntity<Course> createCourse(@RequestBody Course course, @AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Course> createCourse(@RequestBody Course course, @CurrentUser User instructor) {
         return ResponseEntity.ok(courseService.createCourse(course, instructor));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Course> updateCourse(@PathVariable Long id, @RequestBody Course course, @AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Course> updateCourse(@PathVariable Long id, @RequestBody Course course, @CurrentUser CurrentUserIdentity instructor) {
         return ResponseEntity.ok(courseService.updateCourse(id, course, instructor));
     }
 
+    @PostMapping("/{id}/duplicate")
+    public ResponseEntity<Course> duplicateCourse(@PathVariable Long id, @CurrentUser CurrentUserIdentity instructor) {
+        return ResponseEntity.ok(courseService.duplicateCourse(id, instructor));
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCourse(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Void> deleteCourse(@PathVariable Long id, @CurrentUser CurrentUserIdentity instructor) {
         courseService.deleteCourse(id, instructor);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/instructor")
-    public ResponseEntity<List<Course>> getCoursesByInstructor(@AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername()).orElseThrow();
-        return ResponseEntity.ok(courseService.getCoursesByInstructor(instructor.getId()));
+    public ResponseEntity<List<CourseSummary>> getCoursesByInstructor(@CurrentUser CurrentUserIdentity instructor) {
+        return ResponseEntity.ok(courseService.getCourseSummariesByInstructor(instructor.id()));
     }
 }
@@ -1,15 +1,21 @@
 package com.udemylite.controller;
 
+import com.udemylite.dto.BulkEnrollmentRequest;
+import com.udemylite.dto.EnrollmentDashboard;
+import com.udemylite.dto.EnrollmentKey;
 import com.udemylite.model.Enrollment;
 import com.udemylite.model.User;
+import com.udemylite.security.CurrentUser;
+import com.udemylite.security.CurrentUserIdentity;
+import com.udemylite.service.BulkEnrollmentService;
 import com.udemylite.service.EnrollmentService;
-import com.udemylite.service.UserService; // Corrected import
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map; // <-- Import Map
 
@@ -21,32 +27,49 @@ public class EnrollmentController {
     private EnrollmentService enrollmentService;
 
     @Autowired
-    private UserService userService; // Corrected service name
+    private BulkEnrollmentService bulkEnrollmentService;
+
+
+    // Instructors and admins: every student in studentIds into every course in courseIds
+    @PostMapping(value = "/bulk", consumes = "application/json")
+    public ResponseEntity<?> bulkEnroll(@RequestBody BulkEnrollmentRequest request, @CurrentUser CurrentUserIdentity caller) {
+        try {
+            List<EnrollmentKey> pairs = bulkEnrollmentService.crossProduct(request.studentIds(), request.courseIds());
+            return ResponseEntity.ok(bulkEnrollmentService.enroll(pairs, caller));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    // Same, from a text/csv body of "studentId,courseId" lines
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<?> bulkEnrollCsv(HttpServletRequest request, @CurrentUser CurrentUserIdentity caller) throws IOException {
+        try {
+            List<EnrollmentKey> pairs = bulkEnrollmentService.readCsv(request.getReader());
+            return ResponseEntity.ok(bulkEnrollmentService.enroll(pairs, caller));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
 
     // --- FIX 1: Changed URL from "/courses/{courseId}" to "/{courseId}" ---
     // This now matches the frontend's POST /api/enrollments/2
     @PostMapping("/{courseId}")
-    public ResponseEntity<Enrollment> enrollInCourse(@PathVariable Long courseId, @AuthenticationPrincipal UserDetails userDetails) {
-        User student = userService.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Student not found"));
+    public ResponseEntity<Enrollment> enrollInCourse(@PathVariable Long courseId, @CurrentUser User student) {
         return ResponseEntity.ok(enrollmentService.enrollStudent(courseId, student));
     }
 
     // --- FIX 2: Changed URL from "/courses/{courseId}" to "/{courseId}" ---
     // This makes it consistent with the POST URL
     @DeleteMapping("/{courseId}")
-    public ResponseEntity<Void> unenrollFromCourse(@PathVariable Long courseId, @AuthenticationPrincipal UserDetails userDetails) {
-        User student = userService.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Student not found"));
+    public ResponseEntity<Void> unenrollFromCourse(@PathVariable Long courseId, @CurrentUser CurrentUserIdentity student) {
         enrollmentService.unenrollStudent(courseId, student);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getMyEnrollments(@AuthenticationPrincipal UserDetails userDetails) {
-        User student = userService.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        List<Enrollment> enrollments = enrollmentService.getEnrollmentsByStudent(student.getId());
+    public ResponseEntity<List<Map<String, Object>>> getMyEnrollments(@CurrentUser CurrentUserIdentity student) {
+        List<Enrollment> enrollments = enrollmentService.getEnrollmentsByStudent(student.id());
         List<Map<String, Object>> result = enrollments.stream().map(enrollment -> Map.of(
             "id", enrollment.getId(),
             "course", Map.of(
@@ -65,31 +88,43 @@ public class EnrollmentController {
     }
 
     @GetMapping("/instructor")
-    public ResponseEntity<List<Map<String, Object>>> getInstructorEnrollments(@AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Instructor not found"));
-        List<Enrollment> enrollments = enrollmentService.getEnrollmentsByInstructor(instructor.getId());
-        List<Map<String, Object>> result = enrollments.stream().map(enrollment -> Map.of(
-            "id", enrollment.getId(),
-            "student", Map.of("firstName", enrollment.getStudent().getFirstName(), "lastName", enrollment.getStudent().getLastName()),
-            "course", Map.of("title", enrollment.getCourse().getTitle()),
-            "enrollmentDate", enrollment.getEnrollmentDate()
-        )).toList();
-        return ResponseEntity.ok(result);
+    public ResponseEntity<?> getInstructorEnrollments(@RequestParam(required = false) Long courseId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer size,
+                                                      @CurrentUser CurrentUserIdentity instructor) {
+        try {
+            return ResponseEntity.ok(enrollmentService.getEnrollmentsByInstructor(instructor.id(), courseId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/instructor/summary")
+    public ResponseEntity<EnrollmentDashboard> getInstructorSummary(@RequestParam(required = false) Integer days,
+                                                                    @CurrentUser CurrentUserIdentity instructor) {
+        return ResponseEntity.ok(enrollmentService.getInstructorDashboard(instructor.id(), days));
+    }
+
+    // Batch form of the check below for course lists: {"12": true, "15": false, ...}
+    @PostMapping("/check")
+    public ResponseEntity<?> checkEnrollments(@RequestBody List<Long> courseIds, @CurrentUser CurrentUserIdentity student) {
+        try {
+            return ResponseEntity.ok(enrollmentService.checkEnrollments(student.id(), courseIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     // --- FIX 3: ADDED THIS ENTIRE METHOD ---
     // This creates the missing GET /api/enrollments/check/{courseId} endpoint
     @GetMapping("/check/{courseId}")
-    public ResponseEntity<?> checkEnrollment(@PathVariable Long courseId, @AuthenticationPrincipal UserDetails userDetails) {
-        if (userDetails == null) {
+    public ResponseEntity<?> checkEnrollment(@PathVariable Long courseId, @CurrentUser CurrentUserIdentity student) {
+        if (student == null) {
             // If user is not logged in, they are not enrolled
             return ResponseEntity.ok(Map.of("enrolled", false));
         }
-        User student = userService.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Student not found"));
 
-        boolean isEnrolled = enrollmentService.isStudentEnrolled(student.getId(), courseId);
+        boolean isEnrolled = enrollmentService.isStudentEnrolled(student.id(), courseId);
 
         // Return a simple JSON object: { "enrolled": true }
         return ResponseEntity.ok(Map.of("enrolled", isEnrolled));
@@ -0,0 +1,36 @@
+package com.udemylite.controller;
+
+import com.udemylite.event.OutboxMessage;
+import com.udemylite.outbox.EventFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+/**
+ * Change feed for downstream consumers. Pass the id of the last event seen as after;
+ * an empty list means the wait timed out and the consumer should poll again.
+ */
+@RestController
+@RequestMapping("/api/events")
+public class EventController {
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_WAIT_SECONDS = 30;
+
+    @Autowired
+    private EventFeed eventFeed;
+
+    @GetMapping
+    public DeferredResult<List<OutboxMessage>> getEvents(@RequestParam(defaultValue = "0") long after,
+                                                         @RequestParam(defaultValue = "100") int limit,
+                                                         @RequestParam(defaultValue = "25") int waitSeconds) {
+        int boundedLimit = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        int boundedWait = Math.min(Math.max(waitSeconds, 0), MAX_WAIT_SECONDS);
+        return eventFeed.poll(after, boundedLimit, boundedWait * 1000L);
+    }
+}
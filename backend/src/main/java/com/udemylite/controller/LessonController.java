@@ -1,14 +1,22 @@
 package com.udemylite.controller;
 
+import com.udemylite.dto.ListFingerprint;
+import com.udemylite.dto.UploadInitRequest;
+import com.udemylite.dto.UploadStatus;
 import com.udemylite.model.Lesson;
-import com.udemylite.model.User;
+import com.udemylite.security.CurrentUser;
+import com.udemylite.security.CurrentUserIdentity;
 import com.udemylite.service.LessonService;
+import com.udemylite.service.LessonUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -19,35 +27,95 @@ public class LessonController {
     private LessonService lessonService;
 
     @Autowired
-    private com.udemylite.service.UserService userService;
+    private LessonUploadService lessonUploadService;
 
     @GetMapping
-    public ResponseEntity<List<Lesson>> getLessonsByCourse(@PathVariable Long courseId, @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<List<Lesson>> getLessonsByCourse(@PathVariable Long courseId, @CurrentUser CurrentUserIdentity user,
+                                                           WebRequest request) {
+        ListFingerprint fp = lessonService.getLessonsFingerprint(courseId, user);
+        String etag = ConditionalRequests.etag("lessons", courseId, fp.count(), fp.versionSum(), fp.maxId());
+        if (ConditionalRequests.notModified(request, etag, fp.lastModified())) {
+            return null;
+        }
         return ResponseEntity.ok(lessonService.getLessonsByCourse(courseId, user));
     }
 
     @GetMapping("/{lessonId}")
-    public ResponseEntity<Lesson> getLessonById(@PathVariable Long courseId, @PathVariable Long lessonId, @AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.findByEmail(userDetails.getUsername()).orElseThrow();
-        return ResponseEntity.ok(lessonService.getLessonById(lessonId, user));
+    public ResponseEntity<Lesson> getLessonById(@PathVariable Long courseId, @PathVariable Long lessonId, @CurrentUser CurrentUserIdentity user,
+                                                WebRequest request) {
+        Lesson lesson = lessonService.getLessonById(lessonId, user);
+        if (ConditionalRequests.notModified(request, ConditionalRequests.etag("lesson", lesson.getId(), lesson.getVersion()), lesson.getUpdatedAt())) {
+            return null;
+        }
+        return ResponseEntity.ok(lesson);
+    }
+
+    @GetMapping("/{lessonId}/video")
+    public void streamVideo(@PathVariable Long courseId, @PathVariable Long lessonId, @CurrentUser CurrentUserIdentity user,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Not immutable: the lesson may get a different video under the same URL
+        MediaStreaming.serve(request, response, lessonService.getLessonVideo(courseId, lessonId, user), "private, max-age=3600");
+    }
+
+    // --- Resumable video upload: init, PUT chunks by offset, status, complete ---
+
+    @PostMapping("/{lessonId}/uploads")
+    public ResponseEntity<?> startUpload(@PathVariable Long courseId, @PathVariable Long lessonId, @RequestBody UploadInitRequest body,
+                                         @CurrentUser CurrentUserIdentity instructor) throws IOException {
+        try {
+            return ResponseEntity.ok(lessonUploadService.start(courseId, lessonId, body, instructor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{lessonId}/uploads/{uploadId}")
+    public ResponseEntity<UploadStatus> getUpload(@PathVariable Long courseId, @PathVariable Long lessonId, @PathVariable String uploadId,
+                                                  @CurrentUser CurrentUserIdentity instructor) {
+        return ResponseEntity.ok(lessonUploadService.getStatus(lessonId, uploadId, instructor));
+    }
+
+    // Raw chunk bytes as the body; the body stream is never buffered as a whole
+    @PutMapping("/{lessonId}/uploads/{uploadId}")
+    public ResponseEntity<?> putChunk(@PathVariable Long courseId, @PathVariable Long lessonId, @PathVariable String uploadId,
+                                      @RequestParam long offset, @RequestHeader(value = "X-Chunk-SHA256", required = false) String sha256,
+                                      @CurrentUser CurrentUserIdentity instructor, HttpServletRequest request) throws IOException {
+        try {
+            return ResponseEntity.ok(lessonUploadService.writeChunk(lessonId, uploadId, offset, sha256, request.getInputStream(), instructor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{lessonId}/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable Long courseId, @PathVariable Long lessonId, @PathVariable String uploadId,
+                                            @CurrentUser CurrentUserIdentity instructor) throws IOException {
+        try {
+            return ResponseEntity.ok(lessonUploadService.complete(lessonId, uploadId, instructor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{lessonId}/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable Long courseId, @PathVariable Long lessonId, @PathVariable String uploadId,
+                                            @CurrentUser CurrentUserIdentity instructor) throws IOException {
+        lessonUploadService.abort(lessonId, uploadId, instructor);
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping
-    public ResponseEntity<Lesson> createLesson(@PathVariable Long courseId, @RequestBody Lesson lesson, @AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Lesson> createLesson(@PathVariable Long courseId, @RequestBody Lesson lesson, @CurrentUser CurrentUserIdentity instructor) {
         return ResponseEntity.ok(lessonService.createLesson(lesson, courseId, instructor));
     }
 
     @PutMapping("/{lessonId}")
-    public ResponseEntity<Lesson> updateLesson(@PathVariable Long courseId, @PathVariable Long lessonId, @RequestBody Lesson lesson, @AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Lesson> updateLesson(@PathVariable Long courseId, @PathVariable Long lessonId, @RequestBody Lesson lesson, @CurrentUser CurrentUserIdentity instructor) {
         return ResponseEntity.ok(lessonService.updateLesson(lessonId, lesson, instructor));
     }
 
     @DeleteMapping("/{lessonId}")
-    public ResponseEntity<Void> deleteLesson(@PathVariable Long courseId, @PathVariable Long lessonId, @AuthenticationPrincipal UserDetails userDetails) {
-        User instructor = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Void> deleteLesson(@PathVariable Long courseId, @PathVariable Long lessonId, @CurrentUser CurrentUserIdentity instructor) {
         lessonService.deleteLesson(lessonId, instructor);
         return ResponseEntity.noContent().build();
     }
@@ -0,0 +1,44 @@
+package com.udemylite.controller;
+
+import com.udemylite.dto.CourseProgress;
+import com.udemylite.security.CurrentUser;
+import com.udemylite.security.CurrentUserIdentity;
+import com.udemylite.service.LessonProgressService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/progress")
+public class ProgressController {
+
+    @Autowired
+    private LessonProgressService progressService;
+
+    @PostMapping("/lessons/{lessonId}/start")
+    public ResponseEntity<Void> startLesson(@PathVariable Long lessonId, @CurrentUser CurrentUserIdentity student) {
+        progressService.startLesson(student.id(), lessonId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/lessons/{lessonId}/complete")
+    public ResponseEntity<CourseProgress> completeLesson(@PathVariable Long lessonId, @CurrentUser CurrentUserIdentity student) {
+        return ResponseEntity.ok(progressService.completeLesson(student.id(), lessonId));
+    }
+
+    // Body: {"positionSeconds": 123}. Accepted immediately, persisted on the next flush.
+    @PostMapping("/lessons/{lessonId}/heartbeat")
+    public ResponseEntity<Void> heartbeat(@PathVariable Long lessonId, @RequestBody Map<String, Integer> body,
+                                          @CurrentUser CurrentUserIdentity student) {
+        Integer position = body.get("positionSeconds");
+        progressService.heartbeat(student.id(), lessonId, position == null ? 0 : position);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/courses/{courseId}")
+    public ResponseEntity<CourseProgress> getCourseProgress(@PathVariable Long courseId, @CurrentUser CurrentUserIdentity student) {
+        return ResponseEntity.ok(progressService.getCourseProgress(student.id(), courseId));
+    }
+}
@@ -1,13 +1,14 @@
 package com.udemylite.controller;
 
+import com.udemylite.dto.ListFingerprint;
 import com.udemylite.model.Review;
-import com.udemylite.model.User;
+import com.udemylite.security.CurrentUser;
+import com.udemylite.security.CurrentUserIdentity;
 import com.udemylite.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,36 +19,34 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
-    @Autowired
-    private com.udemylite.service.UserService userService;
-
     @PostMapping("/courses/{courseId}")
-    public ResponseEntity<Review> createReview(@PathVariable Long courseId, @RequestBody Review review, @AuthenticationPrincipal UserDetails userDetails) {
-        User student = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Review> createReview(@PathVariable Long courseId, @RequestBody Review review, @CurrentUser CurrentUserIdentity student) {
         return ResponseEntity.ok(reviewService.createReview(review, courseId, student));
     }
 
     @PutMapping("/{reviewId}")
-    public ResponseEntity<Review> updateReview(@PathVariable Long reviewId, @RequestBody Review review, @AuthenticationPrincipal UserDetails userDetails) {
-        User student = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Review> updateReview(@PathVariable Long reviewId, @RequestBody Review review, @CurrentUser CurrentUserIdentity student) {
         return ResponseEntity.ok(reviewService.updateReview(reviewId, review, student));
     }
 
     @DeleteMapping("/{reviewId}")
-    public ResponseEntity<Void> deleteReview(@PathVariable Long reviewId, @AuthenticationPrincipal UserDetails userDetails) {
-        User student = userService.findByEmail(userDetails.getUsername()).orElseThrow();
+    public ResponseEntity<Void> deleteReview(@PathVariable Long reviewId, @CurrentUser CurrentUserIdentity student) {
         reviewService.deleteReview(reviewId, student);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/courses/{courseId}")
-    public ResponseEntity<List<Review>> getReviewsByCourse(@PathVariable Long courseId) {
+    public ResponseEntity<List<Review>> getReviewsByCourse(@PathVariable Long courseId, WebRequest request) {
+        ListFingerprint fp = reviewService.getReviewsFingerprint(courseId);
+        String etag = ConditionalRequests.etag("reviews", courseId, fp.count(), fp.versionSum(), fp.maxId());
+        if (ConditionalRequests.notModified(request, etag, fp.lastModified())) {
+            return null;
+        }
         return ResponseEntity.ok(reviewService.getReviewsByCourse(courseId));
     }
 
     @GetMapping("/my-reviews")
-    public ResponseEntity<List<Review>> getMyReviews(@AuthenticationPrincipal UserDetails userDetails) {
-        User student = userService.findByEmail(userDetails.getUsername()).orElseThrow();
-        return ResponseEntity.ok(reviewService.getReviewsByStudent(student.getId()));
+    public ResponseEntity<List<Review>> getMyReviews(@CurrentUser CurrentUserIdentity student) {
+        return ResponseEntity.ok(reviewService.getReviewsByStudent(student.id()));
     }
 }
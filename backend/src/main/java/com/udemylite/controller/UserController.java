@@ -2,12 +2,11 @@ package com.udemylite.controller;
 
 import com.udemylite.model.Course;
 import com.udemylite.model.User;
+import com.udemylite.security.CurrentUser;
 import com.udemylite.service.CourseService;
 import com.udemylite.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -25,10 +24,7 @@ public class UserController {
     private CourseService courseService;
 
     @GetMapping("/profile")
-    public ResponseEntity<Map<String, Object>> getProfile() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        User user = userService.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<Map<String, Object>> getProfile(@CurrentUser User user) {
 
         Map<String, Object> profile = new HashMap<>();
         profile.put("id", user.getId());
@@ -51,10 +47,7 @@ public class UserController {
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<User> updateProfile(@RequestBody User updatedUser) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        User user = userService.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<User> updateProfile(@RequestBody User updatedUser, @CurrentUser User user) {
 
         // Update only allowed fields
         user.setFirstName(updatedUser.getFirstName());
@@ -0,0 +1,14 @@
+package com.udemylite.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the JWT filter needs to know about an account beyond the token itself: whether it is
+ * still enabled, and the instant before which all of its tokens are revoked (null for none).
+ */
+public record AccountStatus(Long id, boolean enabled, LocalDateTime tokensRevokedAt) {
+
+    public static AccountStatus missing(Long id) {
+        return new AccountStatus(id, false, null);
+    }
+}
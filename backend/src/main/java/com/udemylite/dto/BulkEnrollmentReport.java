@@ -0,0 +1,24 @@
+package com.udemylite.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk enrollment, one row per requested (student, course) pair in request order,
+ * plus the number of rows per status.
+ */
+public record BulkEnrollmentReport(int total, Map<Status, Long> counts, List<Row> rows) {
+
+    public enum Status {
+        ENROLLED,
+        ALREADY_ENROLLED,
+        IS_INSTRUCTOR,
+        STUDENT_NOT_FOUND,
+        COURSE_NOT_FOUND,
+        // The caller is an instructor and the course is not theirs
+        NOT_COURSE_OWNER
+    }
+
+    public record Row(Long studentId, Long courseId, Status status) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.udemylite.dto;
+
+import java.util.List;
+
+/**
+ * JSON form of a bulk enrollment: every listed student is enrolled in every listed course.
+ */
+public record BulkEnrollmentRequest(List<Long> studentIds, List<Long> courseIds) {
+}
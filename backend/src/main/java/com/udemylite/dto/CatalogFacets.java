@@ -0,0 +1,16 @@
+package com.udemylite.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Counts for the catalog sidebar. A price band covers [min, max); max is null for the last band.
+ */
+public record CatalogFacets(long total, List<CategoryCount> categories, List<PriceBandCount> priceBands) {
+
+    public record CategoryCount(String category, long count) {
+    }
+
+    public record PriceBandCount(BigDecimal min, BigDecimal max, long count) {
+    }
+}
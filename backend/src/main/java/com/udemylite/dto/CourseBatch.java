@@ -0,0 +1,10 @@
+package com.udemylite.dto;
+
+import java.util.List;
+
+/**
+ * Result of a batch lookup: summaries in the order the ids were requested (duplicates collapsed),
+ * and the requested ids that do not exist.
+ */
+public record CourseBatch(List<CourseSummary> items, List<Long> notFound) {
+}
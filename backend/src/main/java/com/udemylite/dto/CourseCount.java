@@ -0,0 +1,4 @@
+package com.udemylite.dto;
+
+public record CourseCount(Long courseId, long count) {
+}
@@ -0,0 +1,59 @@
+package com.udemylite.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read model for a single course page: the summary fields with the full description.
+ * ratingHistogram holds the number of 1..5 star reviews, in that order; lastModified is the
+ * later of the course's own timestamp and its last review write.
+ */
+public record CourseDetail(
+        Long id,
+        String title,
+        String description,
+        BigDecimal price,
+        String category,
+        InstructorInfo instructor,
+        long lessonCount,
+        Double averageRating,
+        long ratingCount,
+        List<Long> ratingHistogram,
+        Long version,
+        LocalDateTime lastModified) {
+
+    // Flat constructor used by the JPQL "SELECT new ..." expression; rating columns are null for unreviewed courses
+    public CourseDetail(Long id, String title, String description, BigDecimal price, String category,
+                        Long instructorId, String instructorFirstName, String instructorLastName,
+                        Long lessonCount, Long ratingCount, Long ratingSum,
+                        Long star1, Long star2, Long star3, Long star4, Long star5,
+                        Long version, LocalDateTime courseUpdatedAt, LocalDateTime ratingsUpdatedAt) {
+        this(id, title, description, price, category,
+                new InstructorInfo(instructorId, instructorFirstName, instructorLastName),
+                lessonCount == null ? 0 : lessonCount,
+                CourseSummary.average(ratingCount, ratingSum),
+                ratingCount == null ? 0 : ratingCount,
+                List.of(orZero(star1), orZero(star2), orZero(star3), orZero(star4), orZero(star5)),
+                version,
+                latest(courseUpdatedAt, ratingsUpdatedAt));
+    }
+
+    // Same shape a listing query would return, so cached details can answer summary lookups
+    public CourseSummary toSummary() {
+        String shortDescription = description != null && description.length() > CourseSummary.SHORT_DESCRIPTION_LENGTH
+                ? description.substring(0, CourseSummary.SHORT_DESCRIPTION_LENGTH) : description;
+        return new CourseSummary(id, title, shortDescription, price, category, instructor,
+                lessonCount, averageRating, ratingCount);
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static Long orZero(Long value) {
+        return value == null ? 0L : value;
+    }
+}
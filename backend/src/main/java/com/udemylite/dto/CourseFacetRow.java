@@ -0,0 +1,6 @@
+package com.udemylite.dto;
+
+import java.math.BigDecimal;
+
+public record CourseFacetRow(Long id, String category, BigDecimal price) {
+}
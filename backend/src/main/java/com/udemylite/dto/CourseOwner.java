@@ -0,0 +1,4 @@
+package com.udemylite.dto;
+
+public record CourseOwner(Long courseId, Long instructorId) {
+}
@@ -0,0 +1,22 @@
+package com.udemylite.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A student's progress through a course: one entry per lesson in lesson order, the completion
+ * percentage, and the enrollment's completion date once every lesson is done.
+ */
+public record CourseProgress(
+        Long courseId,
+        int totalLessons,
+        int completedLessons,
+        double percentComplete,
+        LocalDateTime completionDate,
+        List<LessonState> lessons) {
+
+    // startedAt is null for lessons not opened yet
+    public record LessonState(Long lessonId, String title, int positionSeconds,
+                              LocalDateTime startedAt, LocalDateTime completedAt) {
+    }
+}
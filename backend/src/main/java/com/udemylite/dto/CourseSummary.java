@@ -0,0 +1,40 @@
+package com.udemylite.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Read model for course listings. Built directly by a JPQL constructor query so that
+ * listing never touches the lessons/enrollments/reviews collections of Course.
+ */
+public record CourseSummary(
+        Long id,
+        String title,
+        String description,
+        BigDecimal price,
+        String category,
+        InstructorInfo instructor,
+        long lessonCount,
+        Double averageRating,
+        long ratingCount) {
+
+    // Descriptions in listings are cut to this many characters
+    public static final int SHORT_DESCRIPTION_LENGTH = 200;
+
+    // Flat constructor used by the JPQL "SELECT new ..." expression; rating columns are null for unreviewed courses
+    public CourseSummary(Long id, String title, String description, BigDecimal price, String category,
+                         Long instructorId, String instructorFirstName, String instructorLastName,
+                         Long lessonCount, Long ratingCount, Long ratingSum) {
+        this(id, title, description, price, category,
+                new InstructorInfo(instructorId, instructorFirstName, instructorLastName),
+                lessonCount == null ? 0 : lessonCount,
+                average(ratingCount, ratingSum),
+                ratingCount == null ? 0 : ratingCount);
+    }
+
+    static Double average(Long ratingCount, Long ratingSum) {
+        if (ratingCount == null || ratingCount == 0 || ratingSum == null) {
+            return null;
+        }
+        return (double) ratingSum / ratingCount;
+    }
+}
@@ -0,0 +1,9 @@
+package com.udemylite.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. nextCursor is null on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, int size) {
+}
@@ -0,0 +1,31 @@
+package com.udemylite.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Aggregated enrollment figures for an instructor's courses. perDay covers the requested number
+ * of days up to today; days without enrollments are omitted.
+ */
+public record EnrollmentDashboard(
+        long enrollments,
+        long completed,
+        double completionRatio,
+        List<CourseStats> courses,
+        List<DailyCount> perDay) {
+
+    public record CourseStats(Long courseId, String title, long enrollments, long completed, double completionRatio) {
+
+        // Flat constructor used by the JPQL "SELECT new ..." expression
+        public CourseStats(Long courseId, String title, Long enrollments, Long completed) {
+            this(courseId, title, enrollments, completed, ratio(completed, enrollments));
+        }
+    }
+
+    public record DailyCount(LocalDate date, long count) {
+    }
+
+    public static double ratio(long part, long whole) {
+        return whole == 0 ? 0.0 : (double) part / whole;
+    }
+}
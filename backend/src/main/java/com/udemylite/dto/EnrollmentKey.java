@@ -0,0 +1,7 @@
+package com.udemylite.dto;
+
+/**
+ * A (student, course) pair, used for set-wise enrollment lookups.
+ */
+public record EnrollmentKey(Long studentId, Long courseId) {
+}
@@ -0,0 +1,29 @@
+package com.udemylite.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of an instructor's enrollment listing, read by a projection query so that no
+ * Enrollment/User/Course entities are materialized.
+ */
+public record InstructorEnrollment(
+        Long id,
+        StudentInfo student,
+        CourseRef course,
+        LocalDateTime enrollmentDate,
+        LocalDateTime completionDate) {
+
+    public record StudentInfo(Long id, String firstName, String lastName) {
+    }
+
+    public record CourseRef(Long id, String title) {
+    }
+
+    // Flat constructor used by the JPQL "SELECT new ..." expression
+    public InstructorEnrollment(Long id, Long studentId, String firstName, String lastName,
+                                Long courseId, String courseTitle,
+                                LocalDateTime enrollmentDate, LocalDateTime completionDate) {
+        this(id, new StudentInfo(studentId, firstName, lastName), new CourseRef(courseId, courseTitle),
+                enrollmentDate, completionDate);
+    }
+}
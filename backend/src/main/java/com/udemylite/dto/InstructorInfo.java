@@ -0,0 +1,4 @@
+package com.udemylite.dto;
+
+public record InstructorInfo(Long id, String firstName, String lastName) {
+}
@@ -0,0 +1,8 @@
+package com.udemylite.dto;
+
+/**
+ * Where a lesson's video lives: a blob (with its stored content type) or, for files placed by
+ * hand, a path under the media root. Both are null when the lesson has no hosted video.
+ */
+public record LessonVideo(String blobHash, String contentType, String file) {
+}
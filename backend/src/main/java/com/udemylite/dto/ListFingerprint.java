@@ -0,0 +1,14 @@
+package com.udemylite.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap stand-in for a child collection (lessons or reviews of a course), computed by one aggregate
+ * query. Inserts and deletes move count/maxId, in-place edits move versionSum.
+ */
+public record ListFingerprint(long count, long versionSum, Long maxId, LocalDateTime lastModified) {
+
+    public ListFingerprint(Long count, Long versionSum, Long maxId, LocalDateTime lastModified) {
+        this(count == null ? 0 : count.longValue(), versionSum == null ? 0 : versionSum.longValue(), maxId, lastModified);
+    }
+}
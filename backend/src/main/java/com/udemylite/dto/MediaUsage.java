@@ -0,0 +1,8 @@
+package com.udemylite.dto;
+
+/**
+ * Blob store totals: storedBytes is what is on disk, referencedBytes what it would take if every
+ * lesson kept its own copy.
+ */
+public record MediaUsage(long blobs, long storedBytes, long referencedBytes) {
+}
@@ -0,0 +1,9 @@
+package com.udemylite.dto;
+
+import java.util.List;
+
+/**
+ * One page of ranked search results. total is the number of matching courses.
+ */
+public record SearchPage<T>(String query, List<T> items, long total, int page, int size) {
+}
@@ -0,0 +1,11 @@
+package com.udemylite.dto;
+
+/**
+ * One type-ahead suggestion. courseId is null for category suggestions.
+ */
+public record Suggestion(Type type, String text, Long courseId) {
+
+    public enum Type {
+        COURSE, CATEGORY
+    }
+}
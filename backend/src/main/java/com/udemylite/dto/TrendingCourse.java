@@ -0,0 +1,7 @@
+package com.udemylite.dto;
+
+/**
+ * A leaderboard entry: the course and the number of new enrollments it had inside the window.
+ */
+public record TrendingCourse(CourseSummary course, long enrollments) {
+}
@@ -0,0 +1,7 @@
+package com.udemylite.dto;
+
+/**
+ * Starts an upload session. chunkSize is optional and defaults to app.uploads.chunk-size.
+ */
+public record UploadInitRequest(String fileName, Long size, Integer chunkSize) {
+}
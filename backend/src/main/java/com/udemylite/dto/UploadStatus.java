@@ -0,0 +1,25 @@
+package com.udemylite.dto;
+
+import com.udemylite.model.UploadSession;
+
+import java.util.List;
+
+/**
+ * State of an upload session. Chunk i covers bytes [i * chunkSize, min((i + 1) * chunkSize, totalSize)),
+ * and a client resuming after a disconnect only needs to re-send missingChunks.
+ */
+public record UploadStatus(
+        String id,
+        Long lessonId,
+        String fileName,
+        long totalSize,
+        int chunkSize,
+        int chunkCount,
+        int receivedChunks,
+        List<Integer> missingChunks,
+        UploadSession.Status status) {
+
+    // Returned for each stored chunk; sha256 is what the server computed over the bytes it wrote
+    public record ChunkReceipt(int index, long offset, long length, String sha256, int receivedChunks, int chunkCount) {
+    }
+}
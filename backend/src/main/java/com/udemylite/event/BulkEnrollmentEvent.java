@@ -0,0 +1,13 @@
+package com.udemylite.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Published once by a bulk enrollment for the rows it actually inserted, in place of one
+ * {@link EnrollmentChangedEvent} per row. studentIdsByCourse maps each course to the students
+ * newly enrolled in it; they all share enrollmentDate.
+ */
+public record BulkEnrollmentEvent(Map<Long, List<Long>> studentIdsByCourse, LocalDateTime enrollmentDate) {
+}
@@ -0,0 +1,18 @@
+package com.udemylite.event;
+
+import com.udemylite.model.Course;
+
+/**
+ * Published after a course, or something displayed with it, has been written.
+ * course is the saved entity for CREATED/UPDATED and null otherwise.
+ * Raised inside the writing transaction: in-memory listeners use
+ * @TransactionalEventListener so they only see it once it has committed.
+ */
+public record CourseChangedEvent(Long courseId, Type type, Course course) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED,
+        // Lessons or other child rows changed; the course row itself did not
+        CONTENT_CHANGED
+    }
+}
@@ -0,0 +1,16 @@
+package com.udemylite.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after a student has been enrolled in or removed from a course.
+ * enrollmentDate is the date of the enrollment that was created or removed.
+ * Raised inside the writing transaction: in-memory listeners use
+ * @TransactionalEventListener so they only see it once it has committed.
+ */
+public record EnrollmentChangedEvent(Long courseId, Long studentId, Type type, LocalDateTime enrollmentDate) {
+
+    public enum Type {
+        ENROLLED, UNENROLLED
+    }
+}
@@ -0,0 +1,12 @@
+package com.udemylite.event;
+
+/**
+ * Published when a lesson is created, edited or deleted. The course-level
+ * CONTENT_CHANGED event is still published alongside it for the catalog caches.
+ */
+public record LessonChangedEvent(Long lessonId, Long courseId, Type type) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,12 @@
+package com.udemylite.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed domain event as delivered by the outbox relay, to in-process listeners, the
+ * /api/events feed and the file sink alike. Delivery is at least once: consumers should
+ * de-duplicate on id, which also gives the commit-safe order.
+ */
+public record OutboxMessage(Long id, String aggregateType, Long aggregateId, String type,
+                            String payload, LocalDateTime createdAt) {
+}
@@ -0,0 +1,12 @@
+package com.udemylite.event;
+
+/**
+ * Published when a review is created, edited or deleted. rating is the new rating, or the
+ * removed one for DELETED.
+ */
+public record ReviewChangedEvent(Long reviewId, Long courseId, Long studentId, Type type, Integer rating) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
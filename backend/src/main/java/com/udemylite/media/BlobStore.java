@@ -0,0 +1,189 @@
+package com.udemylite.media;
+
+import com.udemylite.dto.MediaUsage;
+import com.udemylite.model.MediaBlob;
+import com.udemylite.repository.LessonRepository;
+import com.udemylite.repository.MediaBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Content-addressed storage for lesson media under app.media.root/blobs/ab/cd/&lt;sha256&gt;.
+ * Identical uploads share one file. Lessons hold references through Lesson.videoBlob and every
+ * change to that column goes through acquire/release in the same transaction. Blobs with no
+ * references are deleted after app.media.gc-grace, once a live lesson lookup agrees the count
+ * is really zero.
+ */
+@Component
+public class BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private MediaBlobRepository blobRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.media.gc-grace:1h}")
+    private Duration gcGrace;
+
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Path path(String sha256) {
+        return mediaStorage.getBlobRoot().resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    /**
+     * Adds source, whose hash the caller computed with {@link #sha256(Path)}, to the store with
+     * one reference. Must run inside a transaction. When the content is already stored, the
+     * existing blob gains the reference and source is deleted after commit; otherwise source is
+     * moved into place.
+     */
+    public void ingest(Path source, String sha256, String contentType) throws IOException {
+        MediaBlob existing = blobRepository.findByIdForUpdate(sha256).orElse(null);
+        if (existing != null && Files.exists(path(sha256))) {
+            blobRepository.adjustRefCount(sha256, 1, LocalDateTime.now());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        Files.deleteIfExists(source);
+                    } catch (IOException e) {
+                        log.warn("Could not remove duplicate upload {}: {}", source, e.getMessage());
+                    }
+                }
+            });
+            return;
+        }
+        MediaBlob blob = existing != null ? existing : new MediaBlob();
+        blob.setSha256(sha256);
+        blob.setSize(Files.size(source));
+        blob.setContentType(contentType);
+        blob.setRefCount(existing != null ? existing.getRefCount() + 1 : 1);
+        blob.setCreatedAt(LocalDateTime.now());
+        blob.setUnreferencedSince(null);
+        // Flushed before the move so a concurrent first upload of the same bytes fails here instead
+        blobRepository.saveAndFlush(blob);
+        Path target = path(sha256);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Without a row the file would be an orphan; put it back so the upload can be completed again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    try {
+                        Files.move(target, source, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        log.warn("Could not restore upload {} after rollback: {}", source, e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    public void acquire(String sha256) {
+        if (sha256 != null) {
+            blobRepository.adjustRefCount(sha256, 1, LocalDateTime.now());
+        }
+    }
+
+    public void release(String sha256) {
+        if (sha256 != null) {
+            blobRepository.adjustRefCount(sha256, -1, LocalDateTime.now());
+        }
+    }
+
+    public MediaFile open(String sha256, String contentType) {
+        return new MediaFile(path(sha256), contentType, "\"" + sha256 + "\"");
+    }
+
+    public MediaUsage usage() {
+        return blobRepository.usage();
+    }
+
+    @Scheduled(cron = "${app.media.gc-cron:0 45 * * * *}")
+    public void collectGarbage() {
+        List<String> candidates = blobRepository.findCollectable(LocalDateTime.now().minus(gcGrace));
+        int deleted = 0;
+        for (String sha256 : candidates) {
+            try {
+                Boolean removed = transactionTemplate.execute(tx -> collect(sha256));
+                if (Boolean.TRUE.equals(removed)) {
+                    deleted++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not collect blob {}: {}", sha256, e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Collected {} unreferenced media blobs", deleted);
+        }
+    }
+
+    // The file goes while the row is locked, so an ingest of the same bytes waits and re-creates it
+    private boolean collect(String sha256) {
+        MediaBlob blob = blobRepository.findByIdForUpdate(sha256).orElse(null);
+        if (blob == null || blob.getRefCount() > 0) {
+            return false;
+        }
+        long live = lessonRepository.countByVideoBlob(sha256);
+        if (live > 0) {
+            log.warn("Blob {} had ref_count {} but {} lessons use it; repairing", sha256, blob.getRefCount(), live);
+            blob.setRefCount((int) live);
+            blob.setUnreferencedSince(null);
+            return false;
+        }
+        try {
+            Files.deleteIfExists(path(sha256));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        blobRepository.delete(blob);
+        return true;
+    }
+}
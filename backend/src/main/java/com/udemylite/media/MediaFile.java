@@ -0,0 +1,14 @@
+package com.udemylite.media;
+
+import java.nio.file.Path;
+
+/**
+ * A file ready to stream. A null contentType is guessed from the file name and a null etag is
+ * derived from size and modification time.
+ */
+public record MediaFile(Path path, String contentType, String etag) {
+
+    public static MediaFile of(Path path) {
+        return new MediaFile(path, null, null);
+    }
+}
@@ -0,0 +1,45 @@
+package com.udemylite.media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Lesson media on local disk. Lessons store a path relative to app.media.root; anything that
+ * resolves outside the root (../, absolute paths) or into the blob and upload areas, which are
+ * only served through their own lessons, is treated as missing.
+ */
+@Component
+public class MediaStorage {
+
+    private final Path root;
+    private final Path blobs;
+    private final Path uploads;
+
+    public MediaStorage(@Value("${app.media.root:media}") Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.blobs = this.root.resolve("blobs");
+        this.uploads = this.root.resolve(".uploads");
+    }
+
+    public Path getBlobRoot() {
+        return blobs;
+    }
+
+    // In-progress uploads live under the root so storing a finished one is a rename, not a copy
+    public Path uploadPath(String sessionId) throws IOException {
+        Path dir = Files.createDirectories(uploads);
+        return dir.resolve(sessionId + ".part");
+    }
+
+    public Path resolve(String relativePath) {
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root) || file.startsWith(blobs) || file.startsWith(uploads) || !Files.isRegularFile(file)) {
+            throw new RuntimeException("Video not found");
+        }
+        return file;
+    }
+}
@@ -0,0 +1,73 @@
+package com.udemylite.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized review aggregates for one course, kept in step with the reviews table by
+ * ReviewService and rebuildable from it. One row per course that has (had) reviews.
+ */
+@Entity
+@Table(name = "course_rating_stats")
+public class CourseRatingStats {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "star1", nullable = false)
+    private long star1;
+
+    @Column(name = "star2", nullable = false)
+    private long star2;
+
+    @Column(name = "star3", nullable = false)
+    private long star3;
+
+    @Column(name = "star4", nullable = false)
+    private long star4;
+
+    @Column(name = "star5", nullable = false)
+    private long star5;
+
+    // Last review write for the course; serves as Last-Modified for its review list
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public CourseRatingStats() {}
+
+    // Getters and Setters
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+
+    public long getRatingCount() { return ratingCount; }
+    public void setRatingCount(long ratingCount) { this.ratingCount = ratingCount; }
+
+    public long getRatingSum() { return ratingSum; }
+    public void setRatingSum(long ratingSum) { this.ratingSum = ratingSum; }
+
+    public long getStar1() { return star1; }
+    public void setStar1(long star1) { this.star1 = star1; }
+
+    public long getStar2() { return star2; }
+    public void setStar2(long star2) { this.star2 = star2; }
+
+    public long getStar3() { return star3; }
+    public void setStar3(long star3) { this.star3 = star3; }
+
+    public long getStar4() { return star4; }
+    public void setStar4(long star4) { this.star4 = star4; }
+
+    public long getStar5() { return star5; }
+    public void setStar5(long star5) { this.star5 = star5; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
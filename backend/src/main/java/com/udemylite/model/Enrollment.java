@@ -6,7 +6,13 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "enrollments")
+@Table(name = "enrollments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_enrollments_student_course", columnNames = {"student_id", "course_id"}),
+        indexes = {
+                @Index(name = "idx_enrollments_date", columnList = "enrollment_date"),
+                // Per-course scans of the instructor dashboard, newest first
+                @Index(name = "idx_enrollments_course_id", columnList = "course_id, id")
+        })
 public class Enrollment {
 
     @Id
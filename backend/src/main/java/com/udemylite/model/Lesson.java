@@ -1,10 +1,17 @@
 package com.udemylite.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference; // <-- 1. IMPORT THIS
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "lessons")
+@Table(name = "lessons", indexes = {
+        @Index(name = "idx_lessons_course_order", columnList = "course_id, order_index"),
+        @Index(name = "idx_lessons_video_blob", columnList = "video_blob")
+})
 public class Lesson {
 
     @Id
@@ -23,9 +30,28 @@ public class Lesson {
     @Column
     private String youtubeUrl;
 
-    @Column(nullable = false)
+    // Path of a self-hosted video, relative to app.media.root; served only through the lesson video endpoint
+    @Column
+    @JsonIgnore
+    private String videoFile;
+
+    // SHA-256 of an uploaded video in the blob store; takes precedence over videoFile
+    @Column(name = "video_blob", length = 64)
+    @JsonIgnore
+    private String videoBlob;
+
+    @Column(name = "order_index", nullable = false)
     private Integer orderIndex;
 
+    // Optimistic lock version, also part of the lesson list fingerprint
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    @UpdateTimestamp
+    @Column
+    private LocalDateTime updatedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     @JsonBackReference("course-lessons") // <-- 2. ADDED THE NAME
@@ -58,9 +84,21 @@ public class Lesson {
     public String getYoutubeUrl() { return youtubeUrl; }
     public void setYoutubeUrl(String youtubeUrl) { this.youtubeUrl = youtubeUrl; }
 
+    public String getVideoFile() { return videoFile; }
+    public void setVideoFile(String videoFile) { this.videoFile = videoFile; }
+
+    public String getVideoBlob() { return videoBlob; }
+    public void setVideoBlob(String videoBlob) { this.videoBlob = videoBlob; }
+
     public Integer getOrderIndex() { return orderIndex; }
     public void setOrderIndex(Integer orderIndex) { this.orderIndex = orderIndex; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
     public Course getCourse() { return course; }
     public void setCourse(Course course) { this.course = course; }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.udemylite.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored media file, keyed by the SHA-256 of its bytes. refCount is the number of lessons whose
+ * videoBlob points here; unreferencedSince is set when it drops to zero and the blob becomes a
+ * garbage collection candidate.
+ */
+@Entity
+@Table(name = "media_blobs", indexes = @Index(name = "idx_media_blobs_unreferenced", columnList = "unreferenced_since"))
+public class MediaBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "unreferenced_since")
+    private LocalDateTime unreferencedSince;
+
+    public MediaBlob() {}
+
+    // Getters and Setters
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUnreferencedSince() { return unreferencedSince; }
+    public void setUnreferencedSince(LocalDateTime unreferencedSince) { this.unreferencedSince = unreferencedSince; }
+}
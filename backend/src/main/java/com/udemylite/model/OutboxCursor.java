@@ -0,0 +1,33 @@
+package com.udemylite.model;
+
+import jakarta.persistence.*;
+
+/**
+ * How far a relay has delivered the outbox: every event with id <= lastEventId has been
+ * handed to all sinks.
+ */
+@Entity
+@Table(name = "outbox_cursors")
+public class OutboxCursor {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    public OutboxCursor() {}
+
+    public OutboxCursor(String name, long lastEventId) {
+        this.name = name;
+        this.lastEventId = lastEventId;
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getLastEventId() { return lastEventId; }
+    public void setLastEventId(long lastEventId) { this.lastEventId = lastEventId; }
+}
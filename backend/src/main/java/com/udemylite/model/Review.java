@@ -2,9 +2,12 @@ package com.udemylite.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference; // <-- 1. IMPORT THIS
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = @Index(name = "idx_reviews_course", columnList = "course_id"))
 public class Review {
 
     @Id
@@ -17,6 +20,14 @@ public class Review {
     @Column(length = 1000)
     private String comment;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    @UpdateTimestamp
+    @Column
+    private LocalDateTime updatedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
     @JsonBackReference("student-reviews") // <-- 2. ADDED NAME
@@ -47,6 +58,12 @@ public class Review {
     public String getComment() { return comment; }
     public void setComment(String comment) { this.comment = comment; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
     public User getStudent() { return student; }
     public void setStudent(User student) { this.student = student; }
 
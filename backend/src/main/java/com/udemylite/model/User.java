@@ -3,6 +3,7 @@ package com.udemylite.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference; // <-- 1. IMPORT THIS
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
@@ -29,6 +30,15 @@ public class User {
     @Column(nullable = false)
     private Role role;
 
+    // Disabled accounts can't log in, and their existing tokens stop working
+    @Column(nullable = false, columnDefinition = "boolean default true")
+    private boolean enabled = true;
+
+    // Tokens issued before this instant are rejected ("log out everywhere")
+    @Column(name = "tokens_revoked_at")
+    @JsonIgnore
+    private LocalDateTime tokensRevokedAt;
+
     @OneToMany(mappedBy = "instructor", cascade = CascadeType.ALL)
     @JsonIgnore
     private Set<Course> courses;
@@ -71,6 +81,12 @@ public class User {
     public Role getRole() { return role; }
     public void setRole(Role role) { this.role = role; }
 
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public LocalDateTime getTokensRevokedAt() { return tokensRevokedAt; }
+    public void setTokensRevokedAt(LocalDateTime tokensRevokedAt) { this.tokensRevokedAt = tokensRevokedAt; }
+
     public Set<Course> getCourses() { return courses; }
     public void setCourses(Set<Course> courses) { this.courses = courses; }
 
@@ -0,0 +1,31 @@
+package com.udemylite.outbox;
+
+import com.udemylite.event.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * In-process bus: republishes each committed event as an {@link OutboxMessage} application
+ * event, for listeners that must only react to changes that actually committed.
+ */
+@Component
+public class ApplicationEventSink implements OutboxSink {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public String name() {
+        return "bus";
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> batch) {
+        for (OutboxMessage message : batch) {
+            eventPublisher.publishEvent(message);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.udemylite.outbox;
+
+import com.udemylite.event.OutboxMessage;
+import com.udemylite.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Long-poll reads of the outbox for out-of-process consumers. Only events the relay has
+ * released are served, so a reader never sees an id and later a smaller one. A poll with
+ * nothing to return parks until the relay releases more or the timeout passes.
+ */
+@Component
+public class EventFeed {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    // Highest id the relay has delivered; -1 until the relay has loaded its cursor
+    private volatile long released = -1;
+
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public DeferredResult<List<OutboxMessage>> poll(long after, int limit, long timeoutMillis) {
+        DeferredResult<List<OutboxMessage>> result = new DeferredResult<>(timeoutMillis, List.of());
+        if (released > after) {
+            result.setResult(read(after, limit));
+            return result;
+        }
+        Waiter waiter = new Waiter(after, limit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // The relay may have released between the check above and registering
+        if (released > after && waiters.remove(waiter)) {
+            result.setResult(read(after, limit));
+        }
+        return result;
+    }
+
+    // Called by the relay once a batch is delivered to every sink
+    void release(long upToId, List<OutboxMessage> batch) {
+        released = upToId;
+        long firstId = batch.isEmpty() ? Long.MAX_VALUE : batch.get(0).id();
+        for (Waiter waiter : waiters) {
+            if (waiter.after >= upToId || !waiters.remove(waiter)) {
+                continue;
+            }
+            if (waiter.after < firstId - 1) {
+                // Behind this batch (e.g. registered during a race): read from the table
+                waiter.result.setResult(read(waiter.after, waiter.limit));
+                continue;
+            }
+            List<OutboxMessage> items = new ArrayList<>();
+            for (OutboxMessage message : batch) {
+                if (message.id() > waiter.after && items.size() < waiter.limit) {
+                    items.add(message);
+                }
+            }
+            waiter.result.setResult(items);
+        }
+    }
+
+    long released() {
+        return released;
+    }
+
+    private List<OutboxMessage> read(long after, int limit) {
+        return outboxEventRepository.findRange(after, released, PageRequest.of(0, limit)).stream()
+                .map(OutboxRelay::toMessage)
+                .toList();
+    }
+
+    private record Waiter(long after, int limit, DeferredResult<List<OutboxMessage>> result) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.udemylite.outbox;
+
+import com.udemylite.event.OutboxMessage;
+import com.udemylite.model.OutboxCursor;
+import com.udemylite.model.OutboxEvent;
+import com.udemylite.repository.OutboxCursorRepository;
+import com.udemylite.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves committed outbox events to the sinks in id order, from a persisted cursor.
+ *
+ * OutboxWriter hands out ids in commit order, so once a row is visible every smaller id has
+ * either committed or rolled back, and a gap in the ids is always a rollback: the relay delivers
+ * whatever it reads. The cursor only moves after every sink took the batch, which makes delivery
+ * at least once.
+ *
+ * A run delivers at most max-batches-per-run batches and leaves the rest to the next poll, so a
+ * large backlog does not hold a scheduler thread for minutes.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    static final String CURSOR_NAME = "relay";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxCursorRepository outboxCursorRepository;
+
+    @Autowired
+    private List<OutboxSink> sinks;
+
+    @Autowired
+    private EventFeed eventFeed;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.outbox.retention:7d}")
+    private Duration retention;
+
+    private long cursor = -1;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile String lastError;
+    private volatile LocalDateTime lastDeliveredCreatedAt;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public synchronized void relay() {
+        if (cursor < 0) {
+            cursor = outboxCursorRepository.findById(CURSOR_NAME).map(OutboxCursor::getLastEventId).orElse(0L);
+            eventFeed.release(cursor, List.of());
+        }
+        for (int run = 0; run < maxBatchesPerRun; run++) {
+            List<OutboxEvent> rows = outboxEventRepository.findRange(cursor, Long.MAX_VALUE, PageRequest.of(0, batchSize));
+            List<OutboxMessage> batch = rows.stream().map(OutboxRelay::toMessage).toList();
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (OutboxSink sink : sinks) {
+                try {
+                    sink.publish(batch);
+                } catch (Exception e) {
+                    failures.increment();
+                    lastError = sink.name() + ": " + e.getMessage();
+                    log.warn("Outbox sink {} failed on events {}..{}, will retry", sink.name(),
+                            batch.get(0).id(), batch.get(batch.size() - 1).id(), e);
+                    return;
+                }
+            }
+            OutboxMessage last = batch.get(batch.size() - 1);
+            cursor = last.id();
+            outboxCursorRepository.save(new OutboxCursor(CURSOR_NAME, cursor));
+            delivered.add(batch.size());
+            lastDeliveredCreatedAt = last.createdAt();
+            eventFeed.release(cursor, batch);
+            if (rows.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 0 4 * * *}")
+    public void deleteDelivered() {
+        long deliveredId = eventFeed.released();
+        if (deliveredId > 0) {
+            int deleted = outboxEventRepository.deleteDelivered(deliveredId, LocalDateTime.now().minus(retention));
+            log.info("Outbox cleanup removed {} delivered events", deleted);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long deliveredId = eventFeed.released();
+        Long maxId = outboxEventRepository.findMaxId();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("deliveredId", deliveredId);
+        stats.put("maxId", maxId);
+        // Ids can have rollback gaps, so this is an upper bound on pending events
+        stats.put("lagEvents", maxId == null || deliveredId < 0 ? 0 : Math.max(0, maxId - deliveredId));
+        List<OutboxEvent> next = deliveredId < 0 ? List.of()
+                : outboxEventRepository.findRange(deliveredId, Long.MAX_VALUE, PageRequest.of(0, 1));
+        stats.put("oldestPendingAgeMillis", next.isEmpty() ? 0
+                : Duration.between(next.get(0).getCreatedAt(), LocalDateTime.now()).toMillis());
+        stats.put("lastDeliveredCreatedAt", lastDeliveredCreatedAt);
+        stats.put("delivered", delivered.sum());
+        stats.put("failures", failures.sum());
+        stats.put("lastError", lastError);
+        stats.put("sinks", sinks.stream().map(OutboxSink::name).toList());
+        return stats;
+    }
+
+    static OutboxMessage toMessage(OutboxEvent row) {
+        return new OutboxMessage(row.getId(), row.getAggregateType(), row.getAggregateId(), row.getEventType(),
+                row.getPayload(), row.getCreatedAt());
+    }
+}
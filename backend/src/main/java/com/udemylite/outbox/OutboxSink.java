@@ -0,0 +1,17 @@
+package com.udemylite.outbox;
+
+import com.udemylite.event.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * A destination for committed outbox events. The relay hands every sink each batch in id
+ * order; if any sink throws, the batch is offered again on the next run, so a sink may see
+ * an event more than once.
+ */
+public interface OutboxSink {
+
+    String name();
+
+    void publish(List<OutboxMessage> batch) throws Exception;
+}
@@ -0,0 +1,164 @@
+package com.udemylite.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udemylite.event.BulkEnrollmentEvent;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.event.EnrollmentChangedEvent;
+import com.udemylite.event.LessonChangedEvent;
+import com.udemylite.event.ReviewChangedEvent;
+import com.udemylite.model.Course;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records domain events in the outbox table as part of the transaction that raised them.
+ *
+ * Events raised inside a transaction are collected and inserted with one JDBC batch just before
+ * it commits, so they commit or roll back with the change itself (a bulk enrollment becomes one
+ * batch, not one insert per row). Outside a transaction the row is inserted in a short one.
+ *
+ * The insert takes a transaction-scoped advisory lock that is held until commit, so outbox ids
+ * are handed out in commit order: a row can only become visible after every smaller id has
+ * committed or rolled back, and the relay never has to guess whether a gap will still fill.
+ * The price is that the last step of outbox-writing transactions (insert and commit) runs one
+ * at a time.
+ */
+@Component
+public class OutboxWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO outbox_events "
+            + "(aggregate_type, aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    // Arbitrary, but must not be used for any other advisory lock
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(7305136947436042352)";
+
+    // Students per BULK_ENROLLED row, to keep payloads a reasonable size
+    private static final int BULK_STUDENTS_PER_EVENT = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        Course course = event.course();
+        if (course != null) {
+            payload.put("title", course.getTitle());
+            payload.put("price", course.getPrice());
+            payload.put("category", course.getCategory());
+            payload.put("instructorId", course.getInstructor() == null ? null : course.getInstructor().getId());
+        }
+        append("COURSE", event.courseId(), event.type().name(), payload);
+    }
+
+    @EventListener
+    public void onLessonChanged(LessonChangedEvent event) {
+        append("LESSON", event.lessonId(), event.type().name(), Map.of("courseId", event.courseId()));
+    }
+
+    @EventListener
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("studentId", event.studentId());
+        payload.put("courseId", event.courseId());
+        payload.put("enrollmentDate", event.enrollmentDate());
+        append("ENROLLMENT", event.courseId(), event.type().name(), payload);
+    }
+
+    // One row per course (and per BULK_STUDENTS_PER_EVENT students), not one per enrollment
+    @EventListener
+    public void onBulkEnrollment(BulkEnrollmentEvent event) {
+        event.studentIdsByCourse().forEach((courseId, studentIds) -> {
+            for (int i = 0; i < studentIds.size(); i += BULK_STUDENTS_PER_EVENT) {
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("courseId", courseId);
+                payload.put("studentIds", studentIds.subList(i, Math.min(i + BULK_STUDENTS_PER_EVENT, studentIds.size())));
+                payload.put("enrollmentDate", event.enrollmentDate());
+                append("ENROLLMENT", courseId, "BULK_ENROLLED", payload);
+            }
+        });
+    }
+
+    @EventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("courseId", event.courseId());
+        payload.put("studentId", event.studentId());
+        payload.put("rating", event.rating());
+        append("REVIEW", event.reviewId(), event.type().name(), payload);
+    }
+
+    private void append(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        Object[] row;
+        try {
+            row = new Object[] {aggregateType, aggregateId, eventType, objectMapper.writeValueAsString(payload),
+                    Timestamp.valueOf(LocalDateTime.now())};
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute(LOCK_SQL);
+                jdbcTemplate.update(INSERT_SQL, row);
+            });
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (rows == null) {
+            List<Object[]> pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Flushed first so that, once we hold the lock, we wait on no other transaction's rows
+                    if (entityManager.isJoinedToTransaction()) {
+                        entityManager.flush();
+                    }
+                    jdbcTemplate.execute(LOCK_SQL);
+                    // created_at is restamped here so it follows commit order too
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    for (Object[] pendingRow : pending) {
+                        pendingRow[4] = now;
+                    }
+                    for (int i = 0; i < pending.size(); i += INSERT_BATCH_SIZE) {
+                        jdbcTemplate.batchUpdate(INSERT_SQL, pending.subList(i, Math.min(i + INSERT_BATCH_SIZE, pending.size())));
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OutboxWriter.this);
+                }
+            });
+            rows = pending;
+        }
+        rows.add(row);
+    }
+}
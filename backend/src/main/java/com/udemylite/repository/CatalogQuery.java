@@ -0,0 +1,20 @@
+package com.udemylite.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Parameters for one keyset page of the course catalog.
+ * afterId/afterKey describe the last row of the previous page (both null for the first page);
+ * category, minPrice and maxPrice are optional filters (price bounds are inclusive).
+ */
+public record CatalogQuery(Sort sort, Long afterId, String afterKey, int limit,
+                           String category, BigDecimal minPrice, BigDecimal maxPrice) {
+
+    public CatalogQuery(Sort sort, Long afterId, String afterKey, int limit) {
+        this(sort, afterId, afterKey, limit, null, null, null);
+    }
+
+    public enum Sort {
+        ID, NEWEST, PRICE, CATEGORY
+    }
+}
@@ -0,0 +1,52 @@
+package com.udemylite.repository;
+
+import com.udemylite.model.CourseRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CourseRatingStatsRepository extends JpaRepository<CourseRatingStats, Long> {
+
+    /**
+     * Adds the given deltas to a course's aggregates in one statement, creating the row if needed.
+     * The row lock taken by ON CONFLICT serializes concurrent reviews of the same course.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO course_rating_stats (course_id, rating_count, rating_sum, star1, star2, star3, star4, star5, updated_at) "
+            + "VALUES (:courseId, :count, :sum, :s1, :s2, :s3, :s4, :s5, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (course_id) DO UPDATE SET "
+            + "rating_count = course_rating_stats.rating_count + EXCLUDED.rating_count, "
+            + "rating_sum = course_rating_stats.rating_sum + EXCLUDED.rating_sum, "
+            + "star1 = course_rating_stats.star1 + EXCLUDED.star1, "
+            + "star2 = course_rating_stats.star2 + EXCLUDED.star2, "
+            + "star3 = course_rating_stats.star3 + EXCLUDED.star3, "
+            + "star4 = course_rating_stats.star4 + EXCLUDED.star4, "
+            + "star5 = course_rating_stats.star5 + EXCLUDED.star5, "
+            + "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void applyDelta(@Param("courseId") Long courseId, @Param("count") long count, @Param("sum") long sum,
+                    @Param("s1") long s1, @Param("s2") long s2, @Param("s3") long s3,
+                    @Param("s4") long s4, @Param("s5") long s5);
+
+    // Held until commit; reads go on, but no review can upsert a row between the delete and the insert
+    @Modifying
+    @Query(value = "LOCK TABLE course_rating_stats IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM course_rating_stats", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO course_rating_stats (course_id, rating_count, rating_sum, star1, star2, star3, star4, star5, updated_at) "
+            + "SELECT course_id, COUNT(*), SUM(rating), "
+            + "COUNT(*) FILTER (WHERE rating = 1), COUNT(*) FILTER (WHERE rating = 2), "
+            + "COUNT(*) FILTER (WHERE rating = 3), COUNT(*) FILTER (WHERE rating = 4), "
+            + "COUNT(*) FILTER (WHERE rating = 5), CURRENT_TIMESTAMP "
+            + "FROM reviews WHERE rating IS NOT NULL GROUP BY course_id",
+            nativeQuery = true)
+    int insertFromReviews();
+}
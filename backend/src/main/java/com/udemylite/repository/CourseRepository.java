@@ -1,12 +1,68 @@
 package com.udemylite.repository;
 
+import com.udemylite.dto.CourseDetail;
+import com.udemylite.dto.CourseFacetRow;
+import com.udemylite.dto.CourseOwner;
+import com.udemylite.dto.CourseSummary;
 import com.udemylite.model.Course;
+import com.udemylite.search.IndexedCourse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Long> {
+public interface CourseRepository extends JpaRepository<Course, Long>, CourseRepositoryCustom {
+
+    // Lesson count comes from a correlated subquery and ratings from the aggregate table,
+    // so a listing stays a single statement
+    String SUMMARY_SELECT = "SELECT new com.udemylite.dto.CourseSummary("
+            + "c.id, c.title, SUBSTRING(c.description, 1, " + CourseSummary.SHORT_DESCRIPTION_LENGTH + "), "
+            + "c.price, c.category, i.id, i.firstName, i.lastName, "
+            + "(SELECT COUNT(l) FROM Lesson l WHERE l.course = c), "
+            + "s.ratingCount, s.ratingSum) "
+            + "FROM Course c JOIN c.instructor i LEFT JOIN CourseRatingStats s ON s.courseId = c.id";
+
+    String DETAIL_SELECT = "SELECT new com.udemylite.dto.CourseDetail("
+            + "c.id, c.title, c.description, c.price, c.category, i.id, i.firstName, i.lastName, "
+            + "(SELECT COUNT(l) FROM Lesson l WHERE l.course = c), "
+            + "s.ratingCount, s.ratingSum, s.star1, s.star2, s.star3, s.star4, s.star5, "
+            + "c.version, c.updatedAt, s.updatedAt) "
+            + "FROM Course c JOIN c.instructor i LEFT JOIN CourseRatingStats s ON s.courseId = c.id";
+
     List<Course> findByInstructorId(Long instructorId);
+
+    @Query(SUMMARY_SELECT + " WHERE i.id = :instructorId ORDER BY c.id")
+    List<CourseSummary> findSummariesByInstructorId(@Param("instructorId") Long instructorId);
+
+    @Query(SUMMARY_SELECT + " WHERE c.id IN :ids")
+    List<CourseSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.udemylite.search.IndexedCourse(c.id, c.title, c.description, c.category) "
+            + "FROM Course c WHERE c.id > :afterId ORDER BY c.id")
+    List<IndexedCourse> findIndexedCoursesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.udemylite.dto.CourseFacetRow(c.id, c.category, c.price) "
+            + "FROM Course c WHERE c.id > :afterId ORDER BY c.id")
+    List<CourseFacetRow> findFacetRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.udemylite.dto.CourseOwner(c.id, c.instructor.id) FROM Course c WHERE c.id IN :ids")
+    List<CourseOwner> findOwnersByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Bulk update: moves Last-Modified for child-collection changes without bumping the version
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.updatedAt = :now WHERE c.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Query(DETAIL_SELECT + " WHERE c.id = :id")
+    Optional<CourseDetail> findDetailById(@Param("id") Long id);
 }
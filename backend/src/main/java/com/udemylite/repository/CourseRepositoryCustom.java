@@ -0,0 +1,11 @@
+package com.udemylite.repository;
+
+import com.udemylite.dto.CourseSummary;
+
+import java.util.List;
+
+public interface CourseRepositoryCustom {
+
+    // Keyset page of the catalog: never uses OFFSET, so cost is the same for page 1 and page 10,000
+    List<CourseSummary> findCatalogPage(CatalogQuery query);
+}
@@ -0,0 +1,114 @@
+package com.udemylite.repository;
+
+import com.udemylite.dto.CourseSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CourseRepositoryImpl implements CourseRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CourseSummary> findCatalogPage(CatalogQuery query) {
+        boolean hasCursor = query.afterId() != null;
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (hasCursor) parameters.put("afterId", query.afterId());
+        String orderBy;
+
+        // Every sort ends with the id as tie-breaker so the order is total and stable
+        switch (query.sort()) {
+            case ID -> {
+                if (hasCursor) conditions.add("c.id > :afterId");
+                orderBy = " ORDER BY c.id ASC";
+            }
+            case NEWEST -> {
+                if (hasCursor) conditions.add("c.id < :afterId");
+                orderBy = " ORDER BY c.id DESC";
+            }
+            case PRICE -> {
+                if (hasCursor) {
+                    // Row comparison, so Postgres reads idx_courses_price_id as one range rather than a filter
+                    conditions.add("(c.price, c.id) > (cast(:afterKey as BigDecimal), cast(:afterId as Long))");
+                    parameters.put("afterKey", new BigDecimal(query.afterKey()));
+                }
+                orderBy = " ORDER BY c.price ASC, c.id ASC";
+            }
+            case CATEGORY -> {
+                return findCategoryPage(query);
+            }
+            default -> throw new IllegalStateException("Unhandled sort " + query.sort());
+        }
+        return select(query, conditions, parameters, orderBy, query.limit());
+    }
+
+    /**
+     * Category order is (category, id) with uncategorized courses last, the order of
+     * idx_courses_category_id. The named categories and the NULL block are read as two ranges
+     * of that index, so a page costs the same wherever it starts. An afterKey of null means the
+     * previous page ended inside the NULL block.
+     */
+    private List<CourseSummary> findCategoryPage(CatalogQuery query) {
+        boolean hasCursor = query.afterId() != null;
+        List<CourseSummary> rows = new ArrayList<>();
+        if (!hasCursor || query.afterKey() != null) {
+            List<String> conditions = new ArrayList<>();
+            Map<String, Object> parameters = new HashMap<>();
+            if (hasCursor) {
+                // Row comparison, so Postgres turns it into one index range rather than a filter
+                conditions.add("(c.category, c.id) > (cast(:afterKey as String), cast(:afterId as Long))");
+                parameters.put("afterKey", query.afterKey());
+                parameters.put("afterId", query.afterId());
+            } else {
+                conditions.add("c.category IS NOT NULL");
+            }
+            rows.addAll(select(query, conditions, parameters, " ORDER BY c.category ASC, c.id ASC", query.limit()));
+        }
+        // A category filter never matches the NULL block
+        if (rows.size() < query.limit() && query.category() == null) {
+            List<String> conditions = new ArrayList<>(List.of("c.category IS NULL"));
+            Map<String, Object> parameters = new HashMap<>();
+            if (hasCursor && query.afterKey() == null) {
+                conditions.add("c.id > :afterId");
+                parameters.put("afterId", query.afterId());
+            }
+            rows.addAll(select(query, conditions, parameters, " ORDER BY c.id ASC", query.limit() - rows.size()));
+        }
+        return rows;
+    }
+
+    // Adds the query's filters to the given keyset conditions and runs it
+    private List<CourseSummary> select(CatalogQuery query, List<String> conditions, Map<String, Object> parameters,
+                                       String orderBy, int limit) {
+        if (query.category() != null) {
+            conditions.add("c.category = :category");
+            parameters.put("category", query.category());
+        }
+        if (query.minPrice() != null) {
+            conditions.add("c.price >= :minPrice");
+            parameters.put("minPrice", query.minPrice());
+        }
+        if (query.maxPrice() != null) {
+            conditions.add("c.price <= :maxPrice");
+            parameters.put("maxPrice", query.maxPrice());
+        }
+
+        StringBuilder jpql = new StringBuilder(CourseRepository.SUMMARY_SELECT);
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(orderBy);
+
+        TypedQuery<CourseSummary> typedQuery = entityManager.createQuery(jpql.toString(), CourseSummary.class);
+        parameters.forEach(typedQuery::setParameter);
+        return typedQuery.setMaxResults(limit).getResultList();
+    }
+}
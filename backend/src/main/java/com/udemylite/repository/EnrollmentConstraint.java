@@ -0,0 +1,62 @@
+package com.udemylite.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes sure uk_enrollments_student_course exists before the app serves requests. Single and bulk
+ * enrollment insert with ON CONFLICT (student_id, course_id), which fails outright without it.
+ *
+ * ddl-auto=update cannot add the constraint to a table that already holds duplicate enrollments
+ * (left by the race the constraint closes); Hibernate logs the failure and starts anyway. So after
+ * Hibernate has run, duplicates are removed, keeping the oldest row, and the constraint is created.
+ * Both steps are no-ops once the constraint is in place.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class EnrollmentConstraint {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentConstraint.class);
+
+    private static final String NAME = "uk_enrollments_student_course";
+
+    private static final String EXISTS_SQL = "SELECT EXISTS (SELECT 1 FROM pg_constraint "
+            + "WHERE conname = '" + NAME + "' AND conrelid = 'enrollments'::regclass)";
+
+    // The kept row inherits a completion recorded on a removed duplicate
+    private static final String KEEP_COMPLETION_SQL = "UPDATE enrollments e SET completion_date = d.completion_date "
+            + "FROM (SELECT student_id, course_id, MIN(id) AS keep_id, MIN(completion_date) AS completion_date "
+            + "FROM enrollments GROUP BY student_id, course_id HAVING COUNT(*) > 1) d "
+            + "WHERE e.id = d.keep_id AND e.completion_date IS NULL AND d.completion_date IS NOT NULL";
+
+    private static final String DELETE_DUPLICATES_SQL = "DELETE FROM enrollments e USING enrollments k "
+            + "WHERE e.student_id = k.student_id AND e.course_id = k.course_id AND e.id > k.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void ensure() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Keeps enrollments from being written, and other nodes starting up from racing this one
+            jdbcTemplate.execute("LOCK TABLE enrollments IN SHARE ROW EXCLUSIVE MODE");
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_SQL, Boolean.class))) {
+                return;
+            }
+            jdbcTemplate.update(KEEP_COMPLETION_SQL);
+            int removed = jdbcTemplate.update(DELETE_DUPLICATES_SQL);
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + NAME + " ON enrollments (student_id, course_id)");
+            jdbcTemplate.execute("ALTER TABLE enrollments ADD CONSTRAINT " + NAME + " UNIQUE USING INDEX " + NAME);
+            log.warn("Created {} after removing {} duplicate enrollments", NAME, removed);
+        });
+    }
+}
@@ -1,9 +1,19 @@
 package com.udemylite.repository;
 
+import com.udemylite.dto.CourseCount;
+import com.udemylite.dto.EnrollmentDashboard;
+import com.udemylite.dto.EnrollmentKey;
+import com.udemylite.dto.InstructorEnrollment;
 import com.udemylite.model.Enrollment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List; // <-- 1. IMPORT THIS
 import java.util.Optional;
 
@@ -18,6 +28,62 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
 
     boolean existsByStudentIdAndCourseId(Long studentId, Long courseId);
 
-    // Find enrollments where the course instructor is the given user
-    List<Enrollment> findByCourse_Instructor_Id(Long instructorId);
+    // Newest first; beforeId is the keyset cursor (Long.MAX_VALUE for the first page)
+    @Query("SELECT new com.udemylite.dto.InstructorEnrollment(e.id, s.id, s.firstName, s.lastName, c.id, c.title, "
+            + "e.enrollmentDate, e.completionDate) "
+            + "FROM Enrollment e JOIN e.student s JOIN e.course c "
+            + "WHERE c.instructor.id = :instructorId AND e.id < :beforeId "
+            + "AND (:courseId IS NULL OR c.id = :courseId) "
+            + "ORDER BY e.id DESC")
+    List<InstructorEnrollment> findInstructorPage(@Param("instructorId") Long instructorId,
+                                                  @Param("courseId") Long courseId,
+                                                  @Param("beforeId") Long beforeId,
+                                                  Pageable pageable);
+
+    // Courses without enrollments are included with zero counts
+    @Query("SELECT new com.udemylite.dto.EnrollmentDashboard$CourseStats(c.id, c.title, COUNT(e), COUNT(e.completionDate)) "
+            + "FROM Course c LEFT JOIN Enrollment e ON e.course = c "
+            + "WHERE c.instructor.id = :instructorId GROUP BY c.id, c.title ORDER BY c.id")
+    List<EnrollmentDashboard.CourseStats> countByCourseForInstructor(@Param("instructorId") Long instructorId);
+
+    @Query("SELECT new com.udemylite.dto.EnrollmentDashboard$DailyCount(EXTRACT(DATE FROM e.enrollmentDate), COUNT(e)) "
+            + "FROM Enrollment e WHERE e.course.instructor.id = :instructorId AND e.enrollmentDate >= :since "
+            + "GROUP BY EXTRACT(DATE FROM e.enrollmentDate) ORDER BY EXTRACT(DATE FROM e.enrollmentDate)")
+    List<EnrollmentDashboard.DailyCount> countPerDayForInstructor(@Param("instructorId") Long instructorId,
+                                                                  @Param("since") LocalDateTime since);
+
+    @Query("SELECT new com.udemylite.dto.CourseCount(e.course.id, COUNT(e)) FROM Enrollment e GROUP BY e.course.id")
+    List<CourseCount> countByCourse();
+
+    @Query("SELECT e.completionDate FROM Enrollment e WHERE e.student.id = :studentId AND e.course.id = :courseId")
+    Optional<LocalDateTime> findCompletionDate(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+
+    // Serializes lesson completions within one enrollment, so the "all lessons done" count sees the others
+    @Query(value = "SELECT id FROM enrollments WHERE student_id = :studentId AND course_id = :courseId FOR UPDATE",
+            nativeQuery = true)
+    Optional<Long> lockByStudentIdAndCourseId(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+
+    // Sets the completion date once; later calls leave it alone
+    @Modifying
+    @Query("UPDATE Enrollment e SET e.completionDate = :completedAt "
+            + "WHERE e.student.id = :studentId AND e.course.id = :courseId AND e.completionDate IS NULL")
+    int markCompleted(@Param("studentId") Long studentId, @Param("courseId") Long courseId,
+                      @Param("completedAt") LocalDateTime completedAt);
+
+    @Query("SELECT e.student.id FROM Enrollment e WHERE e.course.id = :courseId")
+    List<Long> findStudentIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.student.id = :studentId AND e.course.id IN :courseIds")
+    List<Long> findEnrolledCourseIds(@Param("studentId") Long studentId, @Param("courseIds") Collection<Long> courseIds);
+
+    @Query("SELECT new com.udemylite.dto.EnrollmentKey(e.student.id, e.course.id) FROM Enrollment e "
+            + "WHERE e.student.id IN :studentIds AND e.course.id IN :courseIds")
+    List<EnrollmentKey> findKeys(@Param("studentIds") Collection<Long> studentIds,
+                                 @Param("courseIds") Collection<Long> courseIds);
+
+    // Rows of [course_id, hours since the epoch, count]; the hour is taken from the stored local timestamp as-is
+    @Query(value = "SELECT course_id, CAST(FLOOR(EXTRACT(EPOCH FROM enrollment_date) / 3600) AS BIGINT) AS hour_bucket, COUNT(*) "
+            + "FROM enrollments WHERE enrollment_date >= :since GROUP BY course_id, hour_bucket",
+            nativeQuery = true)
+    List<Object[]> countByCourseAndHourSince(@Param("since") LocalDateTime since);
 }
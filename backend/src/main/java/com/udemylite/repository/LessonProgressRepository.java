@@ -0,0 +1,20 @@
+package com.udemylite.repository;
+
+import com.udemylite.model.LessonProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LessonProgressRepository extends JpaRepository<LessonProgress, Long> {
+
+    List<LessonProgress> findByStudentIdAndCourseId(Long studentId, Long courseId);
+
+    // Only lessons that still belong to the course count, so deleted lessons leave no gap
+    @Query("SELECT COUNT(p) FROM LessonProgress p WHERE p.studentId = :studentId AND p.courseId = :courseId "
+            + "AND p.completedAt IS NOT NULL AND p.lessonId IN (SELECT l.id FROM Lesson l WHERE l.course.id = :courseId)")
+    long countCompleted(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+}
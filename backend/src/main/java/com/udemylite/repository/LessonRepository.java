@@ -1,12 +1,39 @@
 package com.udemylite.repository;
 
+import com.udemylite.dto.LessonVideo;
+import com.udemylite.dto.ListFingerprint;
 import com.udemylite.model.Lesson;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
     List<Lesson> findByCourseIdOrderByOrderIndex(Long courseId);
+
+    long countByCourseId(Long courseId);
+
+    @Query("SELECT l.course.id FROM Lesson l WHERE l.id = :lessonId")
+    Optional<Long> findCourseIdById(@Param("lessonId") Long lessonId);
+
+    @Query("SELECT new com.udemylite.dto.LessonVideo(l.videoBlob, b.contentType, l.videoFile) "
+            + "FROM Lesson l LEFT JOIN MediaBlob b ON b.sha256 = l.videoBlob "
+            + "WHERE l.id = :lessonId AND l.course.id = :courseId")
+    Optional<LessonVideo> findVideo(@Param("courseId") Long courseId, @Param("lessonId") Long lessonId);
+
+    // One entry per lesson, so a blob used twice in the course appears twice
+    @Query("SELECT l.videoBlob FROM Lesson l WHERE l.course.id = :courseId AND l.videoBlob IS NOT NULL")
+    List<String> findVideoBlobsByCourseId(@Param("courseId") Long courseId);
+
+    long countByVideoBlob(String videoBlob);
+
+    // Last-Modified comes from the course, which LessonService touches on every lesson write (deletes included)
+    @Query("SELECT new com.udemylite.dto.ListFingerprint(COUNT(l), SUM(l.version), MAX(l.id), "
+            + "(SELECT c.updatedAt FROM Course c WHERE c.id = :courseId)) "
+            + "FROM Lesson l WHERE l.course.id = :courseId")
+    ListFingerprint fingerprintByCourseId(@Param("courseId") Long courseId);
 }
@@ -0,0 +1,39 @@
+package com.udemylite.repository;
+
+import com.udemylite.dto.MediaUsage;
+import com.udemylite.model.MediaBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+
+    // Held while a blob is deduplicated into or collected, so the two never interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM MediaBlob b WHERE b.sha256 = :sha256")
+    Optional<MediaBlob> findByIdForUpdate(@Param("sha256") String sha256);
+
+    // SET expressions see the pre-update ref_count, hence the + :delta in the CASE
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE media_blobs SET ref_count = ref_count + :delta, "
+            + "unreferenced_since = CASE WHEN ref_count + :delta <= 0 THEN :now ELSE NULL END "
+            + "WHERE sha256 = :sha256", nativeQuery = true)
+    int adjustRefCount(@Param("sha256") String sha256, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.sha256 FROM MediaBlob b WHERE b.refCount <= 0 AND b.unreferencedSince < :cutoff")
+    List<String> findCollectable(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT new com.udemylite.dto.MediaUsage(COUNT(b), COALESCE(SUM(b.size), 0), COALESCE(SUM(b.size * b.refCount), 0)) FROM MediaBlob b")
+    MediaUsage usage();
+}
@@ -0,0 +1,29 @@
+package com.udemylite.repository;
+
+import com.udemylite.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id > :afterId AND e.id <= :upToId ORDER BY e.id")
+    List<OutboxEvent> findRange(@Param("afterId") long afterId, @Param("upToId") long upToId, Pageable pageable);
+
+    @Query("SELECT MAX(e.id) FROM OutboxEvent e")
+    Long findMaxId();
+
+    // Retention: only events the relay has already delivered
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id <= :deliveredId AND e.createdAt < :before")
+    int deleteDelivered(@Param("deliveredId") long deliveredId, @Param("before") LocalDateTime before);
+}
@@ -1,7 +1,10 @@
 package com.udemylite.repository;
 
+import com.udemylite.dto.ListFingerprint;
 import com.udemylite.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +13,10 @@ import java.util.List;
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByCourseId(Long courseId);
     List<Review> findByStudentId(Long studentId);
+
+    // The rating stats row is rewritten on every review create/update/delete, so its timestamp covers deletes
+    @Query("SELECT new com.udemylite.dto.ListFingerprint(COUNT(r), SUM(r.version), MAX(r.id), "
+            + "(SELECT s.updatedAt FROM CourseRatingStats s WHERE s.courseId = :courseId)) "
+            + "FROM Review r WHERE r.course.id = :courseId")
+    ListFingerprint fingerprintByCourseId(@Param("courseId") Long courseId);
 }
@@ -0,0 +1,157 @@
+package com.udemylite.search;
+
+import com.udemylite.dto.CatalogFacets;
+import com.udemylite.dto.CourseFacetRow;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.model.Course;
+import com.udemylite.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Category and price-band counts for the catalog, maintained incrementally.
+ *
+ * Each course's current facet values are remembered so an update can move it from its old
+ * bucket to its new one. Reads return an immutable snapshot that is rebuilt only after a
+ * change, so serving the sidebar never depends on catalog size.
+ */
+@Component
+public class CourseFacets {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseFacets.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    // Lower bounds of the price bands, ascending; the first should be 0
+    private final BigDecimal[] bandStarts;
+
+    private final Map<Long, Placement> placements = new HashMap<>();
+    private final Map<String, Long> categoryCounts = new HashMap<>();
+    private final long[] bandCounts;
+    private volatile CatalogFacets snapshot;
+
+    public CourseFacets(@Value("${app.catalog.price-bands:0,500,1000,2000,5000}") BigDecimal[] bandStarts) {
+        this.bandStarts = bandStarts.clone();
+        this.bandCounts = new long[bandStarts.length];
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        List<CourseFacetRow> batch;
+        do {
+            batch = courseRepository.findFacetRowsAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (CourseFacetRow row : batch) {
+                place(row.id(), row.category(), row.price());
+                afterId = row.id();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Catalog facets built: {} courses in {} ms", placements.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                Course course = event.course();
+                place(course.getId(), course.getCategory(), course.getPrice());
+            }
+            case DELETED -> remove(event.courseId());
+            default -> { }
+        }
+    }
+
+    public CatalogFacets getFacets() {
+        CatalogFacets current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = buildSnapshot();
+            }
+            return snapshot;
+        }
+    }
+
+    // Idempotent: placing a course that is already counted first takes it out of its old buckets
+    private synchronized void place(Long courseId, String category, BigDecimal price) {
+        Placement previous = placements.get(courseId);
+        Placement next = new Placement(normalize(category), bandOf(price));
+        if (next.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unplace(previous);
+        }
+        placements.put(courseId, next);
+        if (next.category != null) {
+            categoryCounts.merge(next.category, 1L, Long::sum);
+        }
+        bandCounts[next.band]++;
+        snapshot = null;
+    }
+
+    private synchronized void remove(Long courseId) {
+        Placement previous = placements.remove(courseId);
+        if (previous != null) {
+            unplace(previous);
+            snapshot = null;
+        }
+    }
+
+    private void unplace(Placement placement) {
+        if (placement.category != null) {
+            categoryCounts.computeIfPresent(placement.category, (k, count) -> count == 1 ? null : count - 1);
+        }
+        bandCounts[placement.band]--;
+    }
+
+    private CatalogFacets buildSnapshot() {
+        List<CatalogFacets.CategoryCount> categories = new ArrayList<>(categoryCounts.size());
+        categoryCounts.forEach((category, count) -> categories.add(new CatalogFacets.CategoryCount(category, count)));
+        categories.sort(Comparator.comparingLong(CatalogFacets.CategoryCount::count).reversed()
+                .thenComparing(CatalogFacets.CategoryCount::category));
+
+        List<CatalogFacets.PriceBandCount> bands = new ArrayList<>(bandStarts.length);
+        for (int i = 0; i < bandStarts.length; i++) {
+            BigDecimal max = i + 1 < bandStarts.length ? bandStarts[i + 1] : null;
+            bands.add(new CatalogFacets.PriceBandCount(bandStarts[i], max, bandCounts[i]));
+        }
+        return new CatalogFacets(placements.size(), List.copyOf(categories), List.copyOf(bands));
+    }
+
+    private int bandOf(BigDecimal price) {
+        int band = 0;
+        while (price != null && band + 1 < bandStarts.length && price.compareTo(bandStarts[band + 1]) >= 0) {
+            band++;
+        }
+        return band;
+    }
+
+    // Counts are keyed by the stored value, which is what the category filter matches on
+    private static String normalize(String category) {
+        return category == null || category.isBlank() ? null : category;
+    }
+
+    private record Placement(String category, int band) {
+    }
+}
@@ -0,0 +1,251 @@
+package com.udemylite.search;
+
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.model.Course;
+import com.udemylite.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over course title, category and description, ranked with BM25.
+ *
+ * Built from the database once the application is ready and kept current from
+ * {@link CourseChangedEvent}s. Fields are weighted (title > category > description) by
+ * scaling their term frequencies before BM25 saturation, in the spirit of BM25F.
+ */
+@Component
+public class CourseSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSearchIndex.class);
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dense internal document numbers; freed slots are reused
+    private final Map<Long, Integer> docByCourse = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private double totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        int count = 0;
+        List<IndexedCourse> batch;
+        do {
+            batch = courseRepository.findIndexedCoursesAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (IndexedCourse course : batch) {
+                index(course);
+                afterId = course.id();
+            }
+            count += batch.size();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Course search index built: {} courses in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                Course c = event.course();
+                index(new IndexedCourse(c.getId(), c.getTitle(), c.getDescription(), c.getCategory()));
+            }
+            case DELETED -> remove(event.courseId());
+            default -> { }
+        }
+    }
+
+    public void index(IndexedCourse course) {
+        Map<String, Float> termFreqs = new HashMap<>();
+        addField(termFreqs, course.title(), TITLE_WEIGHT);
+        addField(termFreqs, course.category(), CATEGORY_WEIGHT);
+        addField(termFreqs, course.description(), DESCRIPTION_WEIGHT);
+        float length = 0;
+        for (float tf : termFreqs.values()) {
+            length += tf;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(course.id());
+            int doc = freeDocs.isEmpty() ? docs.size() : freeDocs.pop();
+            String[] terms = termFreqs.keySet().toArray(new String[0]);
+            Doc entry = new Doc(course.id(), length, terms);
+            if (doc == docs.size()) {
+                docs.add(entry);
+            } else {
+                docs.set(doc, entry);
+            }
+            docByCourse.put(course.id(), doc);
+            totalLength += length;
+            for (Map.Entry<String, Float> e : termFreqs.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), t -> new Postings()).add(doc, e.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long courseId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(courseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks all courses matching any query term and returns hits [offset, offset + limit).
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        // Duplicate query terms would otherwise count twice
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.tokenize(query));
+        if (terms.isEmpty()) {
+            return new SearchHits(0, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            int liveDocs = docByCourse.size();
+            if (liveDocs == 0) {
+                return new SearchHits(0, List.of());
+            }
+            double avgLength = totalLength / liveDocs;
+            Map<Integer, Float> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings p = postings.get(term);
+                if (p == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocs - p.size + 0.5) / (p.size + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    int doc = p.docs[i];
+                    float tf = p.freqs[i];
+                    double norm = K1 * (1 - B + B * docs.get(doc).length / avgLength);
+                    float score = (float) (idf * tf * (K1 + 1) / (tf + norm));
+                    scores.merge(doc, score, Float::sum);
+                }
+            }
+
+            // Keep only the best offset + limit candidates in a min-heap
+            int keep = offset + limit;
+            PriorityQueue<SearchHits.Hit> top = new PriorityQueue<>(Math.max(1, keep),
+                    (a, b) -> a.score() != b.score() ? Float.compare(a.score(), b.score()) : b.courseId().compareTo(a.courseId()));
+            for (Map.Entry<Integer, Float> e : scores.entrySet()) {
+                SearchHits.Hit hit = new SearchHits.Hit(docs.get(e.getKey()).courseId, e.getValue());
+                if (top.size() < keep) {
+                    top.add(hit);
+                } else if (keep > 0 && top.comparator().compare(hit, top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+            SearchHits.Hit[] ranked = new SearchHits.Hit[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = top.poll();
+            }
+            List<SearchHits.Hit> page = offset >= ranked.length
+                    ? List.of()
+                    : Arrays.asList(ranked).subList(offset, ranked.length);
+            return new SearchHits(scores.size(), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            return Map.of("courses", docByCourse.size(), "terms", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long courseId) {
+        Integer doc = docByCourse.remove(courseId);
+        if (doc == null) {
+            return;
+        }
+        Doc entry = docs.get(doc);
+        for (String term : entry.terms) {
+            Postings p = postings.get(term);
+            p.remove(doc);
+            if (p.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= entry.length;
+        docs.set(doc, null);
+        freeDocs.push(doc);
+    }
+
+    private static void addField(Map<String, Float> termFreqs, String text, float weight) {
+        for (String token : TextAnalyzer.tokenize(text)) {
+            termFreqs.merge(token, weight, Float::sum);
+        }
+    }
+
+    private record Doc(Long courseId, float length, String[] terms) {
+    }
+
+    // Parallel growable arrays: far smaller than a Map<Integer, Float> per term
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] freqs = new float[4];
+        int size;
+
+        void add(int doc, float freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    // Order is irrelevant, so swap in the last entry
+                    size--;
+                    docs[i] = docs[size];
+                    freqs[i] = freqs[size];
+                    return;
+                }
+            }
+        }
+    }
+}
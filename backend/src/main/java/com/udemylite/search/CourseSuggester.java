@@ -0,0 +1,492 @@
+package com.udemylite.search;
+
+import com.udemylite.dto.CourseCount;
+import com.udemylite.dto.Suggestion;
+import com.udemylite.event.BulkEnrollmentEvent;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.event.EnrollmentChangedEvent;
+import com.udemylite.model.Course;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead over course titles and categories, weighted by enrollment count.
+ *
+ * Every suggestion is reachable from the start of its text and from the start of each
+ * non-stop-word in it ("intro to java" matches "java"). Those keys live in one sorted array of
+ * packed (slot, offset) longs, so a key costs 8 bytes and never a substring. A max segment tree
+ * over the array answers "top k by weight among keys starting with p" in O(k log n) after two
+ * binary searches, and enrollment changes are O(log n) point updates. Adding or removing a course
+ * rewrites the key array by merging, which is linear but rare.
+ */
+@Component
+public class CourseSuggester {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSuggester.class);
+
+    private static final int MAX_KEYS_PER_ENTRY = 8;
+    private static final int MAX_OFFSET = 255;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Entry[] slots = new Entry[64];
+    private int slotCount;
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Long, Entry> courseEntries = new HashMap<>();
+    private final Map<String, Entry> categoryEntries = new HashMap<>();
+
+    // Sorted keys: (slot << 8) | offset into that entry's normalized text
+    private long[] keys = new long[0];
+    // Segment tree of key positions; each node holds the position with the highest weight below it
+    private int[] tree = new int[0];
+    private int leafBase;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        Map<Long, Long> enrollments = new HashMap<>();
+        for (CourseCount count : enrollmentRepository.countByCourse()) {
+            enrollments.put(count.courseId(), count.count());
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Entry> added = new ArrayList<>();
+            long afterId = 0;
+            List<IndexedCourse> batch;
+            do {
+                batch = courseRepository.findIndexedCoursesAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (IndexedCourse course : batch) {
+                    // A course created while the server was starting is already here via its event
+                    if (!courseEntries.containsKey(course.id())) {
+                        attachCourse(course.id(), course.title(), course.category(),
+                                enrollments.getOrDefault(course.id(), 0L), added);
+                    }
+                    afterId = course.id();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            mergeKeys(List.of(), added);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Course suggester built: {} entries, {} keys in {} ms",
+                courseEntries.size() + categoryEntries.size(), keys.length, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> upsertCourse(event.course());
+            case DELETED -> removeCourse(event.courseId());
+            default -> { }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        long delta = event.type() == EnrollmentChangedEvent.Type.ENROLLED ? 1 : -1;
+        lock.writeLock().lock();
+        try {
+            addWeight(event.courseId(), delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkEnrollment(BulkEnrollmentEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.studentIdsByCourse().forEach((courseId, studentIds) -> addWeight(courseId, studentIds.size()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void addWeight(Long courseId, long delta) {
+        Entry course = courseEntries.get(courseId);
+        if (course == null) {
+            return;
+        }
+        setWeight(course, Math.max(0, course.weight + delta));
+        Entry category = course.category == null ? null : categoryEntries.get(course.category);
+        if (category != null) {
+            setWeight(category, Math.max(0, category.weight + delta));
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalizeKey(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int lo = lowerBound(normalized, false);
+            int hi = lowerBound(normalized, true);
+            if (lo >= hi) {
+                return List.of();
+            }
+
+            PriorityQueue<Integer> nodes = new PriorityQueue<>((a, b) -> compareByWeight(tree[a], tree[b]));
+            for (int l = lo + leafBase, r = hi + leafBase; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) nodes.add(l++);
+                if ((r & 1) == 1) nodes.add(--r);
+            }
+
+            List<Suggestion> result = new ArrayList<>(limit);
+            Set<Integer> seen = new HashSet<>();
+            while (!nodes.isEmpty() && result.size() < limit) {
+                int node = nodes.poll();
+                if (node >= leafBase) {
+                    Entry entry = slots[slot(keys[node - leafBase])];
+                    // The same entry can match through several of its words
+                    if (seen.add(entry.slot)) {
+                        result.add(new Suggestion(entry.type, entry.text, entry.courseId));
+                    }
+                } else {
+                    if (tree[2 * node] >= 0) nodes.add(2 * node);
+                    if (tree[2 * node + 1] >= 0) nodes.add(2 * node + 1);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsertCourse(Course course) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = courseEntries.get(course.getId());
+            if (existing != null && existing.text.equals(course.getTitle())
+                    && Objects.equals(existing.category, normalizeCategory(course.getCategory()))) {
+                return;
+            }
+            List<Entry> removed = new ArrayList<>();
+            List<Entry> added = new ArrayList<>();
+            long weight = 0;
+            if (existing != null) {
+                weight = existing.weight;
+                detachCourse(existing, removed);
+            }
+            attachCourse(course.getId(), course.getTitle(), course.getCategory(), weight, added);
+            mergeKeys(removed, added);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeCourse(Long courseId) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = courseEntries.get(courseId);
+            if (existing != null) {
+                List<Entry> removed = new ArrayList<>();
+                detachCourse(existing, removed);
+                mergeKeys(removed, List.of());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Weights are adjusted directly here; mergeKeys rebuilds the whole tree afterwards
+    private void attachCourse(Long courseId, String title, String category, long weight, List<Entry> added) {
+        String categoryKey = normalizeCategory(category);
+        Entry course = newEntry(Suggestion.Type.COURSE, title, courseId, categoryKey, weight);
+        courseEntries.put(courseId, course);
+        added.add(course);
+
+        if (categoryKey != null) {
+            Entry categoryEntry = categoryEntries.get(categoryKey);
+            if (categoryEntry == null) {
+                categoryEntry = newEntry(Suggestion.Type.CATEGORY, category.trim(), null, categoryKey, 0);
+                categoryEntries.put(categoryKey, categoryEntry);
+                added.add(categoryEntry);
+            }
+            categoryEntry.courseCount++;
+            categoryEntry.weight += weight;
+        }
+    }
+
+    private void detachCourse(Entry course, List<Entry> removed) {
+        courseEntries.remove(course.courseId);
+        removed.add(course);
+
+        Entry category = course.category == null ? null : categoryEntries.get(course.category);
+        if (category != null) {
+            category.courseCount--;
+            category.weight = Math.max(0, category.weight - course.weight);
+            if (category.courseCount == 0) {
+                categoryEntries.remove(course.category);
+                removed.add(category);
+            }
+        }
+    }
+
+    private Entry newEntry(Suggestion.Type type, String text, Long courseId, String category, long weight) {
+        int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+        if (slot >= slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        Entry entry = new Entry(slot, type, text, normalizeKey(text), courseId, category);
+        entry.weight = weight;
+        slots[slot] = entry;
+        return entry;
+    }
+
+    /**
+     * Drops the keys of removed entries, merges in the keys of added ones and rebuilds the tree.
+     * Removed slots are only freed at the end, so no slot is reused while its old keys are still in the array.
+     */
+    private void mergeKeys(List<Entry> removed, List<Entry> added) {
+        Set<Integer> removedSlots = new HashSet<>();
+        for (Entry entry : removed) {
+            removedSlots.add(entry.slot);
+        }
+        List<Long> newKeys = new ArrayList<>();
+        for (Entry entry : added) {
+            for (long key : keysOf(entry)) {
+                newKeys.add(key);
+            }
+        }
+        long[] incoming = sortKeys(newKeys);
+
+        long[] merged = new long[keys.length + incoming.length];
+        int i = 0, j = 0, n = 0;
+        while (i < keys.length || j < incoming.length) {
+            if (i < keys.length && removedSlots.contains(slot(keys[i]))) {
+                i++;
+            } else if (j >= incoming.length || (i < keys.length && compareKeys(keys[i], incoming[j]) <= 0)) {
+                merged[n++] = keys[i++];
+            } else {
+                merged[n++] = incoming[j++];
+            }
+        }
+        keys = Arrays.copyOf(merged, n);
+        rebuildTree();
+
+        for (Entry entry : removed) {
+            slots[entry.slot] = null;
+            freeSlots.push(entry.slot);
+        }
+    }
+
+    private void setWeight(Entry entry, long weight) {
+        entry.weight = weight;
+        for (long key : keysOf(entry)) {
+            int pos = indexOfKey(key);
+            if (pos < 0) {
+                continue;
+            }
+            for (int node = (pos + leafBase) >> 1; node >= 1; node >>= 1) {
+                tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+    }
+
+    private void rebuildTree() {
+        int size = 1;
+        while (size < keys.length) {
+            size <<= 1;
+        }
+        leafBase = size;
+        tree = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            tree[size + i] = i < keys.length ? i : -1;
+        }
+        for (int node = size - 1; node >= 1; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private int better(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        return compareByWeight(a, b) <= 0 ? a : b;
+    }
+
+    // Heavier first; equal weights fall back to key order, i.e. alphabetical
+    private int compareByWeight(int posA, int posB) {
+        int byWeight = Long.compare(slots[slot(keys[posB])].weight, slots[slot(keys[posA])].weight);
+        return byWeight != 0 ? byWeight : Integer.compare(posA, posB);
+    }
+
+    private int indexOfKey(long key) {
+        int lo = 0, hi = keys.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareKeys(keys[mid], key);
+            if (cmp == 0) {
+                return mid;
+            } else if (cmp < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    // First key position that is >= prefix, or (afterPrefix) the first one past every key starting with it
+    private int lowerBound(String prefix, boolean afterPrefix) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparePrefix(keys[mid], prefix);
+            if (cmp < 0 || (afterPrefix && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // < 0 if the key sorts before prefix, 0 if it starts with it, > 0 otherwise
+    private int comparePrefix(long key, String prefix) {
+        String text = slots[slot(key)].normalized;
+        int offset = offset(key);
+        int len = Math.min(text.length() - offset, prefix.length());
+        for (int k = 0; k < len; k++) {
+            int diff = text.charAt(offset + k) - prefix.charAt(k);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return text.length() - offset >= prefix.length() ? 0 : -1;
+    }
+
+    private int compareKeys(long a, long b) {
+        String ta = slots[slot(a)].normalized;
+        String tb = slots[slot(b)].normalized;
+        int oa = offset(a), ob = offset(b);
+        int len = Math.min(ta.length() - oa, tb.length() - ob);
+        for (int k = 0; k < len; k++) {
+            int diff = ta.charAt(oa + k) - tb.charAt(ob + k);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        int byLength = Integer.compare(ta.length() - oa, tb.length() - ob);
+        // Identical texts still need a total order for binary search
+        return byLength != 0 ? byLength : Long.compare(a, b);
+    }
+
+    private long[] sortKeys(List<Long> unsorted) {
+        Long[] boxed = unsorted.toArray(new Long[0]);
+        Arrays.sort(boxed, this::compareKeys);
+        long[] sorted = new long[boxed.length];
+        for (int k = 0; k < boxed.length; k++) {
+            sorted[k] = boxed[k];
+        }
+        return sorted;
+    }
+
+    private long[] keysOf(Entry entry) {
+        long[] result = new long[MAX_KEYS_PER_ENTRY];
+        int n = 0;
+        String text = entry.normalized;
+        for (int offset = 0; offset < text.length() && offset <= MAX_OFFSET && n < MAX_KEYS_PER_ENTRY; offset++) {
+            if (offset == 0 || text.charAt(offset - 1) == ' ') {
+                int end = text.indexOf(' ', offset);
+                String word = text.substring(offset, end < 0 ? text.length() : end);
+                if (offset == 0 || TextAnalyzer.tokenize(word).size() == 1) {
+                    result[n++] = ((long) entry.slot << 8) | offset;
+                }
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int slot(long key) {
+        return (int) (key >>> 8);
+    }
+
+    private static int offset(long key) {
+        return (int) (key & 0xFF);
+    }
+
+    // Collapse every run of non-alphanumerics to one space so "C++ / Java" and "c java" agree
+    private static String normalizeKey(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = TextAnalyzer.normalize(text);
+        StringBuilder sb = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int k = 0; k < folded.length(); k++) {
+            char c = folded.charAt(k);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(c);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String normalizeCategory(String category) {
+        if (category == null || category.isBlank()) {
+            return null;
+        }
+        return normalizeKey(category);
+    }
+
+    private static final class Entry {
+        final int slot;
+        final Suggestion.Type type;
+        final String text;
+        final String normalized;
+        final Long courseId;
+        // For a course: its category key. For a category: its own key.
+        final String category;
+        long weight;
+        int courseCount;
+
+        Entry(int slot, Suggestion.Type type, String text, String normalized, Long courseId, String category) {
+            this.slot = slot;
+            this.type = type;
+            this.text = text;
+            this.normalized = normalized;
+            this.courseId = courseId;
+            this.category = category;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.udemylite.search;
+
+/**
+ * The searchable text of a course, as read from the database for (re)indexing.
+ */
+public record IndexedCourse(Long id, String title, String description, String category) {
+}
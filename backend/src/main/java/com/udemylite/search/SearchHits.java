@@ -0,0 +1,9 @@
+package com.udemylite.search;
+
+import java.util.List;
+
+public record SearchHits(long total, List<Hit> hits) {
+
+    public record Hit(Long courseId, float score) {
+    }
+}
@@ -0,0 +1,221 @@
+package com.udemylite.search;
+
+import com.udemylite.dto.CourseCount;
+import com.udemylite.event.BulkEnrollmentEvent;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.event.EnrollmentChangedEvent;
+import com.udemylite.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * New-enrollment leaderboards over the last 24 hours, 7 days and 30 days.
+ *
+ * Enrollments are counted in hourly buckets. Each window keeps a running per-course total plus
+ * a sorted set of (count, course) ranks, so an enrollment or an expiring hour costs O(log n) per
+ * touched course and reading the top N is a walk over the first N ranks. Windows move forward
+ * one hour at a time; the hour in progress is always included.
+ */
+@Component
+public class TrendingCourses {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingCourses.class);
+
+    public enum Window {
+        DAY("24h", 24), WEEK("7d", 24 * 7), MONTH("30d", 24 * 30);
+
+        private final String label;
+        private final int hours;
+
+        Window(String label, int hours) {
+            this.label = label;
+            this.hours = hours;
+        }
+
+        public static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Unknown window: " + label + " (expected 24h, 7d or 30d)");
+        }
+    }
+
+    private static final Comparator<Rank> BY_COUNT_DESC = Comparator.comparingLong(Rank::count).reversed()
+            .thenComparing(Rank::courseId);
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    // hour -> (course -> enrollments in that hour), covering the longest window
+    private final TreeMap<Long, Map<Long, Long>> buckets = new TreeMap<>();
+    private final Map<Window, Board> boards = new HashMap<>();
+    private long currentHour;
+
+    public TrendingCourses() {
+        for (Window window : Window.values()) {
+            boards.put(window, new Board());
+        }
+        currentHour = hourOf(LocalDateTime.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long now = hourOf(LocalDateTime.now());
+        LocalDateTime since = LocalDateTime.ofEpochSecond((now - Window.MONTH.hours + 1) * 3600, 0, ZoneOffset.UTC);
+        List<Object[]> rows = enrollmentRepository.countByCourseAndHourSince(since);
+        synchronized (this) {
+            buckets.clear();
+            boards.values().forEach(Board::clear);
+            currentHour = now;
+            for (Object[] row : rows) {
+                add(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+            }
+        }
+        log.info("Trending leaderboards built from {} hourly counts in {} ms", rows.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        if (event.enrollmentDate() == null) {
+            return;
+        }
+        long delta = event.type() == EnrollmentChangedEvent.Type.ENROLLED ? 1 : -1;
+        synchronized (this) {
+            advance(hourOf(LocalDateTime.now()));
+            add(event.courseId(), hourOf(event.enrollmentDate()), delta);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkEnrollment(BulkEnrollmentEvent event) {
+        synchronized (this) {
+            advance(hourOf(LocalDateTime.now()));
+            long hour = hourOf(event.enrollmentDate());
+            event.studentIdsByCourse().forEach((courseId, studentIds) -> add(courseId, hour, studentIds.size()));
+        }
+    }
+
+    // Enrollments of a deleted course go with it (cascade), without UNENROLLED events
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.type() != CourseChangedEvent.Type.DELETED) {
+            return;
+        }
+        synchronized (this) {
+            for (Map<Long, Long> bucket : buckets.values()) {
+                bucket.remove(event.courseId());
+            }
+            boards.values().forEach(board -> board.remove(event.courseId()));
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void expire() {
+        synchronized (this) {
+            advance(hourOf(LocalDateTime.now()));
+        }
+    }
+
+    public synchronized List<CourseCount> top(Window window, int limit) {
+        advance(hourOf(LocalDateTime.now()));
+        List<CourseCount> top = new ArrayList<>(Math.min(limit, boards.get(window).ranks.size()));
+        Iterator<Rank> it = boards.get(window).ranks.iterator();
+        while (it.hasNext() && top.size() < limit) {
+            Rank rank = it.next();
+            top.add(new CourseCount(rank.courseId(), rank.count()));
+        }
+        return top;
+    }
+
+    // Adds delta enrollments for a course in the given hour to the bucket and to every window covering it
+    private void add(long courseId, long hour, long delta) {
+        if (hour <= currentHour - Window.MONTH.hours) {
+            return;
+        }
+        Map<Long, Long> bucket = buckets.get(hour);
+        if (delta < 0 && (bucket == null || !bucket.containsKey(courseId))) {
+            return; // enrolled before the data we hold, nothing to take back
+        }
+        buckets.computeIfAbsent(hour, h -> new HashMap<>()).merge(courseId, delta, (a, b) -> a + b == 0 ? null : a + b);
+        for (Window window : Window.values()) {
+            if (hour > currentHour - window.hours) {
+                boards.get(window).add(courseId, delta);
+            }
+        }
+    }
+
+    // Moves every window's start up to the given hour, subtracting the hours that fell out
+    private void advance(long hour) {
+        if (hour <= currentHour) {
+            return;
+        }
+        for (Window window : Window.values()) {
+            Board board = boards.get(window);
+            long from = currentHour - window.hours + 1;
+            long to = hour - window.hours + 1;
+            for (Map.Entry<Long, Map<Long, Long>> expired : buckets.subMap(from, true, to, false).entrySet()) {
+                expired.getValue().forEach((courseId, count) -> board.add(courseId, -count));
+            }
+        }
+        currentHour = hour;
+        buckets.headMap(hour - Window.MONTH.hours + 1, false).clear();
+    }
+
+    private static long hourOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private record Rank(long count, long courseId) {
+    }
+
+    private static final class Board {
+        private final Map<Long, Long> counts = new HashMap<>();
+        private final TreeSet<Rank> ranks = new TreeSet<>(BY_COUNT_DESC);
+
+        void add(long courseId, long delta) {
+            Long previous = counts.get(courseId);
+            long next = (previous == null ? 0 : previous) + delta;
+            if (previous != null) {
+                ranks.remove(new Rank(previous, courseId));
+            }
+            if (next > 0) {
+                counts.put(courseId, next);
+                ranks.add(new Rank(next, courseId));
+            } else {
+                counts.remove(courseId);
+            }
+        }
+
+        void remove(long courseId) {
+            Long previous = counts.remove(courseId);
+            if (previous != null) {
+                ranks.remove(new Rank(previous, courseId));
+            }
+        }
+
+        void clear() {
+            counts.clear();
+            ranks.clear();
+        }
+    }
+}
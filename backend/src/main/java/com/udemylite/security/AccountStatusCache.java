@@ -0,0 +1,42 @@
+package com.udemylite.security;
+
+import com.udemylite.cache.BoundedCache;
+import com.udemylite.cache.CacheStats;
+import com.udemylite.dto.AccountStatus;
+import com.udemylite.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived account status per user id, so the JWT filter can honour disabled accounts and
+ * token revocation without a query per request. Changes made on this instance invalidate the
+ * entry at once; on other instances they take effect within the TTL.
+ */
+@Component
+public class AccountStatusCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final BoundedCache<Long, AccountStatus> statuses;
+
+    public AccountStatusCache(@Value("${app.cache.account-status.max-size:50000}") int maxSize,
+                              @Value("${app.cache.account-status.ttl:30s}") Duration ttl) {
+        this.statuses = new BoundedCache<>("account-status", maxSize, ttl);
+    }
+
+    public AccountStatus get(Long userId) {
+        return statuses.get(userId, id -> userRepository.findAccountStatus(id).orElseGet(() -> AccountStatus.missing(id)));
+    }
+
+    public void invalidate(Long userId) {
+        statuses.invalidate(userId);
+    }
+
+    public CacheStats stats() {
+        return statuses.stats();
+    }
+}
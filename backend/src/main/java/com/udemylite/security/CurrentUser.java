@@ -0,0 +1,18 @@
+package com.udemylite.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated caller into a handler parameter, either as a
+ * {@link CurrentUserIdentity} (taken from the token, no query) or as the {@code User} entity
+ * (loaded at most once per request). Resolves to null for anonymous requests.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
@@ -0,0 +1,60 @@
+package com.udemylite.security;
+
+import com.udemylite.model.User;
+import com.udemylite.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link CurrentUser} parameters. The identity comes straight from the AuthenticatedUser
+ * principal; the User entity is loaded by id on first use and kept in a request attribute, so a
+ * request never loads it twice. Principals from tokens without a uid claim are looked up by email
+ * once instead.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".user";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && (type == CurrentUserIdentity.class || type == User.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !(authentication.getPrincipal() instanceof UserDetails principal)) {
+            return null;
+        }
+        if (principal instanceof AuthenticatedUser user && parameter.getParameterType() == CurrentUserIdentity.class) {
+            return user.identity();
+        }
+        User user = (User) webRequest.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (user == null) {
+            user = (principal instanceof AuthenticatedUser authenticated
+                    ? userRepository.findById(authenticated.getId())
+                    : userRepository.findByEmail(principal.getUsername()))
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            webRequest.setAttribute(USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return parameter.getParameterType() == User.class ? user : CurrentUserIdentity.of(user);
+    }
+}
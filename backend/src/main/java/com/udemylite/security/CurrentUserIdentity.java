@@ -0,0 +1,18 @@
+package com.udemylite.security;
+
+import com.udemylite.model.User;
+
+/**
+ * Who the caller is, as far as authorization checks need to know: enough for ownership and role
+ * checks without loading the User entity.
+ */
+public record CurrentUserIdentity(Long id, String email, User.Role role) {
+
+    public static CurrentUserIdentity of(User user) {
+        return new CurrentUserIdentity(user.getId(), user.getEmail(), user.getRole());
+    }
+
+    public boolean hasRole(User.Role candidate) {
+        return role == candidate;
+    }
+}
@@ -1,5 +1,8 @@
 package com.udemylite.security;
 
+import com.udemylite.dto.AccountStatus;
+import com.udemylite.model.User;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,12 +12,23 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
+/**
+ * Authenticates requests from the bearer token's claims (subject, uid, authorities) without
+ * loading the user. The only per-user state consulted is AccountStatusCache, which covers
+ * disabled accounts and revoked tokens. Tokens issued before the uid claim existed still go
+ * through the UserDetailsService until they expire.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -24,34 +38,69 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private AccountStatusCache accountStatusCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
-
-        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails principal = null;
             try {
-                username = jwtUtil.extractUsername(jwtToken);
-            } catch (Exception e) {
+                principal = authenticate(jwtUtil.verify(requestTokenHeader.substring(7)));
+            } catch (JwtException | IllegalArgumentException e) {
                 logger.warn("Unable to get JWT Token or JWT Token has expired");
+            } catch (UsernameNotFoundException e) {
+                logger.warn("JWT Token subject no longer exists");
+            }
+            if (principal != null) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        principal, null, principal.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
+        chain.doFilter(request, response);
+    }
+
+    // Returns null when the token is valid but the account may no longer use it
+    private UserDetails authenticate(VerifiedToken token) {
+        if (token.userId() == null) {
+            UserDetails legacy = userDetailsService.loadUserByUsername(token.subject());
+            return legacy.isEnabled() ? legacy : null;
+        }
+        AccountStatus status = accountStatusCache.get(token.userId());
+        if (!status.enabled() || isRevoked(token.issuedAt(), status)) {
+            return null;
+        }
+        User.Role role = roleOf(token.authorities());
+        return role != null ? new AuthenticatedUser(token.userId(), token.subject(), role) : null;
+    }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                usernamePasswordAuthenticationToken
-                        .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+    private static boolean isRevoked(Instant issuedAt, AccountStatus status) {
+        if (status.tokensRevokedAt() == null) {
+            return false;
+        }
+        // iat has whole-second precision, so compare in seconds: a login in the same second as the
+        // revocation must work, at the cost of also accepting a token issued earlier in that second
+        Instant revokedAt = status.tokensRevokedAt().atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS);
+        return issuedAt == null || issuedAt.isBefore(revokedAt);
+    }
+
+    private static User.Role roleOf(List<String> authorities) {
+        for (String name : authorities) {
+            if (name.startsWith("ROLE_")) {
+                try {
+                    return User.Role.valueOf(name.substring(5));
+                } catch (IllegalArgumentException e) {
+                    // not one of ours; keep looking
+                }
             }
         }
-        chain.doFilter(request, response);
+        return null;
     }
 }
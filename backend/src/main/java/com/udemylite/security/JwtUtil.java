@@ -1,20 +1,27 @@
 package com.udemylite.security;
 
+import com.udemylite.cache.BoundedCache;
+import com.udemylite.cache.CacheStats;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import javax.crypto.SecretKey;
-import java.util.Base64;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 @Component
 public class JwtUtil {
@@ -29,6 +36,15 @@ public class JwtUtil {
 
     private SecretKey key;
 
+    private JwtParser parser;
+
+    private final BoundedCache<String, VerifiedToken> verifiedTokens;
+
+    public JwtUtil(@Value("${app.cache.verified-tokens.max-size:100000}") int maxSize,
+                   @Value("${app.cache.verified-tokens.ttl:10m}") Duration ttl) {
+        this.verifiedTokens = new BoundedCache<>("verified-tokens", maxSize, ttl);
+    }
+
     @PostConstruct
     public void init() {
         // Your secret key is not Base64 encoded, it's a plain string.
@@ -40,10 +56,14 @@ public class JwtUtil {
         // The key 'oNWOW2lfkRlhrv8q8HHeELylJLwuuPmY' is 32 bytes (256 bits), 
         // which is perfect.
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        // Immutable and thread-safe, so one instance serves every request
+        this.parser = Jwts.parserBuilder().setSigningKey(this.key).build();
     }
 
-    public String generateToken(String username, List<String> roles) {
+    // uid and authorities let JwtAuthenticationFilter build the principal without loading the user
+    public String generateToken(Long userId, String username, List<String> roles) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", userId);
         claims.put("authorities", roles); 
         return createToken(claims, username);
     }
@@ -61,35 +81,51 @@ public class JwtUtil {
                 .compact();
     }
     
-    public String extractUsername(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
-    }
-
-    public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+    /**
+     * Verifies the token and returns its claims; throws a JwtException (or
+     * IllegalArgumentException for an empty token) when it is malformed, forged or expired.
+     * Tokens verified before are answered from the cache until they expire, so a session's
+     * repeated requests skip the HMAC and JSON parsing.
+     */
+    public VerifiedToken verify(String token) {
+        String key = cacheKey(token);
+        VerifiedToken cached = verifiedTokens.peek(key);
+        if (cached != null && cached.isExpired(Instant.now())) {
+            // Re-parsing throws ExpiredJwtException, same as for a token never seen before
+            verifiedTokens.invalidate(key);
+        }
+        return verifiedTokens.get(key, k -> parse(token));
     }
 
-    public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
-        return claimsResolver.apply(claims);
+    public CacheStats verifiedTokenStats() {
+        return verifiedTokens.stats();
     }
 
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(this.key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        List<String> authorities = new ArrayList<>();
+        List<?> raw = claims.get("authorities", List.class);
+        if (raw != null) {
+            for (Object authority : raw) {
+                authorities.add(String.valueOf(authority));
+            }
+        }
+        return new VerifiedToken(claims.getSubject(), claims.get("uid", Long.class), authorities,
+                toInstant(claims.getIssuedAt()), toInstant(claims.getExpiration()));
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    // Keyed by a digest so the cache never holds usable bearer tokens
+    private static String cacheKey(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
     }
 }
 
@@ -0,0 +1,125 @@
+package com.udemylite.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on a small dedicated pool so a login spike costs at
+ * most app.password.threads cores instead of every request thread. The queue is bounded; when it
+ * is full the call fails at once with RejectedExecutionException and the caller answers 503,
+ * rather than letting logins wait behind each other until they time out.
+ */
+@Component
+public class PasswordHasher {
+
+    // Verified when the email is unknown, so a miss costs as much as a wrong password
+    private static final String DUMMY_PASSWORD = "not-a-real-password";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${app.password.threads:0}")
+    private int threads;
+
+    @Value("${app.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private String dummyHash;
+
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        dummyHash = passwordEncoder.encode(DUMMY_PASSWORD);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> {
+            String hash = passwordEncoder.encode(rawPassword);
+            hashed.increment();
+            return hash;
+        });
+    }
+
+    // encodedPassword may be null for an unknown account; the result is then always false
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> {
+            boolean ok = passwordEncoder.matches(rawPassword, encodedPassword != null ? encodedPassword : dummyHash);
+            verified.increment();
+            return ok && encodedPassword != null;
+        });
+    }
+
+    // True when the hash was made with another algorithm or a lower cost than the current one
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Best-effort rehash after a successful login. Skipped rather than queued when the pool is
+     * busy; the next login will try again.
+     */
+    public CompletableFuture<String> rehash(CharSequence rawPassword) {
+        try {
+            CompletableFuture<String> hash = encode(rawPassword);
+            rehashed.increment();
+            return hash;
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("hashed", hashed.sum());
+        stats.put("verified", verified.sum());
+        stats.put("rehashed", rehashed.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+}
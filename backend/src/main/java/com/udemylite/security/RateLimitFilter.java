@@ -0,0 +1,329 @@
+package com.udemylite.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket limits for the auth endpoints and for review and enrollment writes, each keyed
+ * by client IP and by account (the email in the login/register body, or the authenticated user
+ * id). Limits are "capacity/period", e.g. 5/1m: a burst of 5, then one more every 12 seconds.
+ * Over the limit the request gets 429 with Retry-After.
+ *
+ * A bucket is a single AtomicLong updated by CAS (the "theoretical arrival time" form of a token
+ * bucket), so the check takes no lock and allocates nothing once the key exists. A bucket that
+ * has refilled completely is the same as no bucket, which is what the sweep removes.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Login and register bodies are tiny; a bigger JSON body is refused with 413
+    private static final int MAX_INSPECTED_BODY = 16 * 1024;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.auth.per-ip:20/1m}")
+    private String authPerIp;
+
+    @Value("${app.rate-limit.auth.per-account:5/1m}")
+    private String authPerAccount;
+
+    @Value("${app.rate-limit.reviews.per-ip:60/1m}")
+    private String reviewsPerIp;
+
+    @Value("${app.rate-limit.reviews.per-account:20/1m}")
+    private String reviewsPerAccount;
+
+    @Value("${app.rate-limit.enrollments.per-ip:120/1m}")
+    private String enrollmentsPerIp;
+
+    @Value("${app.rate-limit.enrollments.per-account:30/1m}")
+    private String enrollmentsPerAccount;
+
+    // Keys per rule; past this, new clients go untracked until the next sweep rather than growing the map
+    @Value("${app.rate-limit.max-keys:200000}")
+    private int maxKeys;
+
+    private Route auth;
+    private Route reviews;
+    private Route enrollments;
+    private final LongAdder untracked = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        auth = new Route("auth", new Rule(authPerIp), new Rule(authPerAccount));
+        reviews = new Route("reviews", new Rule(reviewsPerIp), new Rule(reviewsPerAccount));
+        enrollments = new Route("enrollments", new Rule(enrollmentsPerIp), new Rule(enrollmentsPerAccount));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Route route = enabled ? routeOf(request) : null;
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long now = System.nanoTime();
+        long waitNanos = route.perIp.tryAcquire(request.getRemoteAddr(), now);
+        if (waitNanos == 0) {
+            String account;
+            if (route == auth && isJson(request.getContentType())) {
+                // Read at most one byte past the limit, whatever Content-Length claims
+                byte[] body = request.getInputStream().readNBytes(MAX_INSPECTED_BODY + 1);
+                if (body.length > MAX_INSPECTED_BODY) {
+                    response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                    response.setContentType("text/plain;charset=UTF-8");
+                    response.getWriter().write("Request body is larger than " + MAX_INSPECTED_BODY + " bytes");
+                    return;
+                }
+                request = new CachedBodyRequest(request, body);
+                account = emailOf(body);
+            } else if (route == auth) {
+                account = null; // not JSON, so the controller rejects it; limited by IP only
+            } else {
+                account = authenticatedAccount();
+            }
+            if (account != null) {
+                waitNanos = route.perAccount.tryAcquire(account, now);
+            }
+        }
+        if (waitNanos > 0) {
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", Long.toString(seconds));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Too many requests, retry in " + seconds + "s");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Route routeOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if (path.startsWith("/api/auth/")) {
+            return "POST".equals(method) ? auth : null;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return null;
+        }
+        if (path.startsWith("/api/reviews/")) {
+            return reviews;
+        }
+        if (path.equals("/api/enrollments") || path.startsWith("/api/enrollments/")) {
+            return enrollments;
+        }
+        return null;
+    }
+
+    // application/json or any application/*+json type, with or without parameters
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            return MediaType.APPLICATION_JSON.includes(type)
+                    || ("application".equals(type.getType()) && type.getSubtype().endsWith("+json"));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private String emailOf(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null; // the controller will reject it anyway
+        }
+    }
+
+    // Runs right after JwtAuthenticationFilter, so anonymous requests have no authentication yet
+    private static String authenticatedAccount() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        return authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.getId().toString() : authentication.getName();
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Route route : List.of(auth, reviews, enrollments)) {
+            route.perIp.evictIdle(now);
+            route.perAccount.evictIdle(now);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        for (Route route : List.of(auth, reviews, enrollments)) {
+            stats.put(route.name, Map.of("perIp", route.perIp.stats(), "perAccount", route.perAccount.stats()));
+        }
+        stats.put("untracked", untracked.sum());
+        return stats;
+    }
+
+    private record Route(String name, Rule perIp, Rule perAccount) {
+    }
+
+    private final class Rule {
+        private final String spec;
+        private final int capacity;
+        // Time for one token to come back, and for the whole bucket to refill
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder limited = new LongAdder();
+
+        Rule(String spec) {
+            String[] parts = spec.split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate limit must look like 20/1m: " + spec);
+            }
+            this.spec = spec;
+            this.capacity = Integer.parseInt(parts[0].trim());
+            Duration period = DurationStyle.detectAndParse(parts[1].trim());
+            if (capacity <= 0 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Rate limit must be positive: " + spec);
+            }
+            this.intervalNanos = period.toNanos() / capacity;
+            this.burstNanos = intervalNanos * capacity;
+        }
+
+        // 0 when a token was taken, otherwise how long until one is available
+        long tryAcquire(String key, long now) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxKeys) {
+                    untracked.increment();
+                    return 0;
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            while (true) {
+                long tat = bucket.get();
+                long next = Math.max(tat, now) + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    limited.increment();
+                    return excess;
+                }
+                if (bucket.compareAndSet(tat, next)) {
+                    allowed.increment();
+                    return 0;
+                }
+            }
+        }
+
+        void evictIdle(long now) {
+            buckets.entrySet().removeIf(e -> e.getValue().get() - now <= 0);
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("limit", spec);
+            stats.put("keys", buckets.size());
+            stats.put("allowed", allowed.sum());
+            stats.put("limited", limited.sum());
+            return stats;
+        }
+    }
+
+    // The body is read here to find the email, so the controller gets a copy to read again
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is all available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (in.available() > 0) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package com.udemylite.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -27,6 +26,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -38,7 +40,11 @@ public class SecurityConfig {
             
             // 3. Define authorization rules
             .authorizeHttpRequests(authz -> authz
-                
+
+                // --- Async results (long-poll feed) re-dispatch a request that was already authorized ---
+                // --- and error pages keep the original status, e.g. a 500 on an anonymous login ---
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                 // --- Permit all static assets for the React frontend ---
                 .requestMatchers(
                     new AntPathRequestMatcher("/"),
@@ -57,18 +63,23 @@ public class SecurityConfig {
                 // --- Permit public viewing of courses ---
                 .requestMatchers(HttpMethod.GET, "/api/courses").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/courses/{id}").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/courses/batch").permitAll()
 
                 // --- Secure endpoints (Specific rules FIRST) ---
                 .requestMatchers(HttpMethod.GET, "/api/courses/{courseId}/lessons").hasAnyRole("STUDENT", "INSTRUCTOR", "ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/courses/{courseId}/lessons/{lessonId}").hasAnyRole("STUDENT", "INSTRUCTOR", "ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/courses/{courseId}/lessons/{lessonId}/video").hasAnyRole("STUDENT", "INSTRUCTOR", "ADMIN")
                 
                 // --- General rule for courses (e.g., POST, PUT, DELETE) ---
                 .requestMatchers("/api/courses/**").hasAnyRole("INSTRUCTOR", "ADMIN")
                 
                 // --- Other role-specific routes ---
+                .requestMatchers(HttpMethod.POST, "/api/enrollments/bulk").hasAnyRole("INSTRUCTOR", "ADMIN")
                 .requestMatchers("/api/enrollments/**").hasAnyRole("STUDENT", "INSTRUCTOR", "ADMIN")
                 .requestMatchers("/api/reviews/**").hasAnyRole("STUDENT", "ADMIN")
+                .requestMatchers("/api/progress/**").hasAnyRole("STUDENT", "INSTRUCTOR", "ADMIN")
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/api/events/**", "/api/events").hasRole("ADMIN")
                 
                 // --- All other requests must be authenticated ---
                 .anyRequest().authenticated()
@@ -80,6 +91,9 @@ public class SecurityConfig {
         // 5. Add the JWT filter before the standard auth filter
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
+        // 6. Rate limits, after the JWT filter so writes can be limited per account too
+        http.addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
+
         return http.build();
     }
 
@@ -105,13 +119,5 @@ public class SecurityConfig {
         return source;
     }
 
-    /**
-     * Exposes the AuthenticationManager as a Bean, required for login.
-     */
-    @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
-    }
-
 
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.udemylite.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The claims of a token whose signature and expiry have been checked. userId is null for tokens
+ * issued before the uid claim was added.
+ */
+public record VerifiedToken(String subject, Long userId, List<String> authorities, Instant issuedAt, Instant expiresAt) {
+
+    public VerifiedToken {
+        authorities = authorities == null ? List.of() : List.copyOf(authorities);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,240 @@
+package com.udemylite.service;
+
+import com.udemylite.dto.BulkEnrollmentReport;
+import com.udemylite.dto.BulkEnrollmentReport.Status;
+import com.udemylite.dto.CourseOwner;
+import com.udemylite.dto.EnrollmentKey;
+import com.udemylite.event.BulkEnrollmentEvent;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.EnrollmentRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.security.CurrentUserIdentity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Enrolls many (student, course) pairs at once for onboarding. Validation is set-wise: students,
+ * courses and existing enrollments are each looked up with a handful of IN queries, whatever the
+ * row count, and new rows are written a chunk of arrays at a time.
+ */
+@Service
+public class BulkEnrollmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkEnrollmentService.class);
+
+    // Keeps IN lists well below the driver's bind-parameter limit
+    private static final int LOOKUP_CHUNK_SIZE = 5000;
+    private static final int INSERT_CHUNK_SIZE = 5000;
+
+    // A concurrent enrollment of the same pair may commit after our lookup; that row is skipped
+    // rather than failing the whole request, and RETURNING tells us which rows were ours
+    private static final String INSERT_SQL = "INSERT INTO enrollments (student_id, course_id, enrollment_date) "
+            + "SELECT s, c, ? FROM unnest(?::bigint[], ?::bigint[]) AS t(s, c) "
+            + "ON CONFLICT (student_id, course_id) DO NOTHING RETURNING student_id, course_id";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.enrollments.bulk.max-rows:200000}")
+    private int maxRows;
+
+    // Every student in every course
+    public List<EnrollmentKey> crossProduct(List<Long> studentIds, List<Long> courseIds) {
+        if (studentIds == null || courseIds == null || studentIds.isEmpty() || courseIds.isEmpty()) {
+            throw new IllegalArgumentException("studentIds and courseIds are required");
+        }
+        if ((long) studentIds.size() * courseIds.size() > maxRows) {
+            throw new IllegalArgumentException("At most " + maxRows + " rows per bulk enrollment");
+        }
+        List<EnrollmentKey> pairs = new ArrayList<>(studentIds.size() * courseIds.size());
+        for (Long studentId : studentIds) {
+            for (Long courseId : courseIds) {
+                pairs.add(new EnrollmentKey(studentId, courseId));
+            }
+        }
+        return pairs;
+    }
+
+    // Reads "studentId,courseId" lines as they arrive; a non-numeric first line is taken as a header
+    public List<EnrollmentKey> readCsv(BufferedReader reader) throws IOException {
+        List<EnrollmentKey> pairs = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int comma = line.indexOf(',');
+            try {
+                if (comma < 0) {
+                    throw new NumberFormatException();
+                }
+                pairs.add(new EnrollmentKey(Long.parseLong(line.substring(0, comma).strip()),
+                        Long.parseLong(line.substring(comma + 1).strip())));
+            } catch (NumberFormatException e) {
+                if (lineNumber == 1) {
+                    continue;
+                }
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected studentId,courseId");
+            }
+            if (pairs.size() > maxRows) {
+                throw new IllegalArgumentException("At most " + maxRows + " rows per bulk enrollment");
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Enrolls every valid pair and reports each row. Instructors may only enroll into their own
+     * courses; admins into any. A pair repeated within the request reports ALREADY_ENROLLED.
+     */
+    @Transactional
+    public BulkEnrollmentReport enroll(List<EnrollmentKey> pairs, CurrentUserIdentity caller) {
+        long started = System.nanoTime();
+        Set<Long> studentIds = new LinkedHashSet<>();
+        Set<Long> courseIds = new LinkedHashSet<>();
+        for (EnrollmentKey pair : pairs) {
+            studentIds.add(pair.studentId());
+            courseIds.add(pair.courseId());
+        }
+
+        Set<Long> existingStudents = new HashSet<>();
+        for (List<Long> chunk : chunks(studentIds)) {
+            existingStudents.addAll(userRepository.findExistingIds(chunk));
+        }
+        Map<Long, Long> instructorByCourse = new HashMap<>();
+        for (List<Long> chunk : chunks(courseIds)) {
+            for (CourseOwner owner : courseRepository.findOwnersByIdIn(chunk)) {
+                instructorByCourse.put(owner.courseId(), owner.instructorId());
+            }
+        }
+        Set<EnrollmentKey> enrolled = new HashSet<>();
+        for (List<Long> studentChunk : chunks(existingStudents)) {
+            for (List<Long> courseChunk : chunks(instructorByCourse.keySet())) {
+                enrolled.addAll(enrollmentRepository.findKeys(studentChunk, courseChunk));
+            }
+        }
+
+        boolean admin = caller.hasRole(User.Role.ADMIN);
+        List<BulkEnrollmentReport.Row> rows = new ArrayList<>(pairs.size());
+        Map<Status, Long> counts = new EnumMap<>(Status.class);
+        List<EnrollmentKey> toInsert = new ArrayList<>();
+        List<Integer> toInsertRows = new ArrayList<>();
+        for (EnrollmentKey pair : pairs) {
+            Long instructorId = instructorByCourse.get(pair.courseId());
+            Status status;
+            if (!existingStudents.contains(pair.studentId())) {
+                status = Status.STUDENT_NOT_FOUND;
+            } else if (instructorId == null) {
+                status = Status.COURSE_NOT_FOUND;
+            } else if (!admin && !instructorId.equals(caller.id())) {
+                status = Status.NOT_COURSE_OWNER;
+            } else if (instructorId.equals(pair.studentId())) {
+                status = Status.IS_INSTRUCTOR;
+            } else if (!enrolled.add(pair)) {
+                status = Status.ALREADY_ENROLLED;
+            } else {
+                status = Status.ENROLLED;
+                toInsert.add(pair);
+                toInsertRows.add(rows.size());
+            }
+            rows.add(new BulkEnrollmentReport.Row(pair.studentId(), pair.courseId(), status));
+            counts.merge(status, 1L, Long::sum);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<EnrollmentKey> inserted = insert(toInsert, Timestamp.valueOf(now));
+        Map<Long, List<Long>> studentIdsByCourse = new HashMap<>();
+        for (int i = 0; i < toInsert.size(); i++) {
+            EnrollmentKey pair = toInsert.get(i);
+            if (inserted.contains(pair)) {
+                studentIdsByCourse.computeIfAbsent(pair.courseId(), id -> new ArrayList<>()).add(pair.studentId());
+            } else {
+                rows.set(toInsertRows.get(i), new BulkEnrollmentReport.Row(pair.studentId(), pair.courseId(), Status.ALREADY_ENROLLED));
+                counts.merge(Status.ENROLLED, -1L, Long::sum);
+                counts.merge(Status.ALREADY_ENROLLED, 1L, Long::sum);
+            }
+        }
+        counts.remove(Status.ENROLLED, 0L);
+        if (!studentIdsByCourse.isEmpty()) {
+            eventPublisher.publishEvent(new BulkEnrollmentEvent(studentIdsByCourse, now));
+        }
+
+        log.info("Bulk enrollment by user {}: {} rows, {} inserted in {} ms", caller.id(), pairs.size(),
+                inserted.size(), (System.nanoTime() - started) / 1_000_000);
+        return new BulkEnrollmentReport(pairs.size(), counts, rows);
+    }
+
+    private Set<EnrollmentKey> insert(List<EnrollmentKey> pairs, Timestamp enrollmentDate) {
+        Set<EnrollmentKey> inserted = new HashSet<>();
+        for (int from = 0; from < pairs.size(); from += INSERT_CHUNK_SIZE) {
+            List<EnrollmentKey> chunk = pairs.subList(from, Math.min(from + INSERT_CHUNK_SIZE, pairs.size()));
+            Long[] studentIds = new Long[chunk.size()];
+            Long[] courseIds = new Long[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                studentIds[i] = chunk.get(i).studentId();
+                courseIds[i] = chunk.get(i).courseId();
+            }
+            jdbcTemplate.query(INSERT_SQL, ps -> {
+                Connection connection = ps.getConnection();
+                ps.setTimestamp(1, enrollmentDate);
+                ps.setArray(2, connection.createArrayOf("bigint", studentIds));
+                ps.setArray(3, connection.createArrayOf("bigint", courseIds));
+            }, rs -> {
+                inserted.add(new EnrollmentKey(rs.getLong(1), rs.getLong(2)));
+            });
+        }
+        return inserted;
+    }
+
+    private static List<List<Long>> chunks(Set<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> current = new ArrayList<>(Math.min(ids.size(), LOOKUP_CHUNK_SIZE));
+        for (Long id : ids) {
+            current.add(id);
+            if (current.size() == LOOKUP_CHUNK_SIZE) {
+                chunks.add(current);
+                current = new ArrayList<>(LOOKUP_CHUNK_SIZE);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,111 @@
+package com.udemylite.service;
+
+import com.udemylite.cache.BoundedCache;
+import com.udemylite.cache.CacheStats;
+import com.udemylite.dto.CourseDetail;
+import com.udemylite.dto.CourseSummary;
+import com.udemylite.dto.CursorPage;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.model.Course;
+import com.udemylite.repository.CatalogQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * In-process cache in front of the public catalog reads (catalog pages and course details).
+ *
+ * Invalidation is driven by {@link CourseChangedEvent}. Because catalog pages are keyset pages,
+ * a change to one course only affects the pages whose key range covers it: pages that contain
+ * the course, plus pages its (new) sort key now falls into.
+ */
+@Component
+public class CourseCatalogCache {
+
+    private final BoundedCache<Long, CourseDetail> details;
+    private final BoundedCache<CatalogQuery, CursorPage<CourseSummary>> pages;
+
+    public CourseCatalogCache(@Value("${app.cache.course-details.max-size:10000}") int detailsMaxSize,
+                              @Value("${app.cache.course-details.ttl:5m}") Duration detailsTtl,
+                              @Value("${app.cache.catalog-pages.max-size:2000}") int pagesMaxSize,
+                              @Value("${app.cache.catalog-pages.ttl:60s}") Duration pagesTtl) {
+        this.details = new BoundedCache<>("course-details", detailsMaxSize, detailsTtl);
+        this.pages = new BoundedCache<>("catalog-pages", pagesMaxSize, pagesTtl);
+    }
+
+    public CourseDetail getDetail(Long courseId, Function<Long, CourseDetail> loader) {
+        return details.get(courseId, loader);
+    }
+
+    // Cached detail or null; never loads
+    public CourseDetail peekDetail(Long courseId) {
+        return details.getIfPresent(courseId);
+    }
+
+    public CursorPage<CourseSummary> getPage(CatalogQuery query, Function<CatalogQuery, CursorPage<CourseSummary>> loader) {
+        return pages.get(query, loader);
+    }
+
+    // For bulk changes that touch too many courses to invalidate one by one
+    public void invalidateAll() {
+        details.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    public List<CacheStats> stats() {
+        return List.of(details.stats(), pages.stats());
+    }
+
+    // After commit: invalidating earlier would let a concurrent read re-cache the pre-commit state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        Long courseId = event.courseId();
+        details.invalidate(courseId);
+        Course moved = event.type() == CourseChangedEvent.Type.CREATED || event.type() == CourseChangedEvent.Type.UPDATED
+                ? event.course() : null;
+        pages.invalidateIf((query, page) -> containsCourse(page, courseId) || (moved != null && fallsInto(query, page, moved)));
+    }
+
+    private boolean containsCourse(CursorPage<CourseSummary> page, Long courseId) {
+        for (CourseSummary summary : page.items()) {
+            if (summary.id().equals(courseId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // True when the course's sort key lies after the page's cursor and no later than its last row
+    private boolean fallsInto(CatalogQuery query, CursorPage<CourseSummary> page, Course course) {
+        if (query.sort() == CatalogQuery.Sort.CATEGORY) {
+            // Postgres collation order need not match String.compareTo, so don't try to be clever
+            return true;
+        }
+        if (query.afterId() != null && compare(query.sort(), course, query.afterKey(), query.afterId()) <= 0) {
+            return false;
+        }
+        if (page.nextCursor() == null || page.items().isEmpty()) {
+            return true;
+        }
+        CourseSummary last = page.items().get(page.items().size() - 1);
+        String lastKey = last.price() == null ? null : last.price().toPlainString();
+        return compare(query.sort(), course, lastKey, last.id()) <= 0;
+    }
+
+    private int compare(CatalogQuery.Sort sort, Course course, String key, Long id) {
+        return switch (sort) {
+            case ID -> course.getId().compareTo(id);
+            case NEWEST -> id.compareTo(course.getId());
+            case PRICE -> {
+                int byPrice = course.getPrice().compareTo(new BigDecimal(key));
+                yield byPrice != 0 ? byPrice : course.getId().compareTo(id);
+            }
+            case CATEGORY -> throw new IllegalStateException("Category pages are invalidated wholesale");
+        };
+    }
+}
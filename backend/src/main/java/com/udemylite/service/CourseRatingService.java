@@ -0,0 +1,86 @@
+package com.udemylite.service;
+
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.repository.CourseRatingStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class CourseRatingService {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseRatingService.class);
+
+    @Autowired
+    private CourseRatingStatsRepository statsRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CourseCatalogCache catalogCache;
+
+    /**
+     * Moves a course's aggregates from oldRating to newRating. Either may be null for a
+     * created or deleted review, and a legacy review without a rating counts as none. A rating
+     * outside 1..5 (old rows predate the check) still moves count and sum but no star bucket,
+     * as in rebuildAll. Must run in the transaction that writes the review.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyChange(Long courseId, Integer oldRating, Integer newRating) {
+        long[] stars = new long[5];
+        long count = 0;
+        long sum = 0;
+        if (oldRating != null) {
+            if (isStar(oldRating)) {
+                stars[oldRating - 1]--;
+            }
+            count--;
+            sum -= oldRating;
+        }
+        if (newRating != null) {
+            if (isStar(newRating)) {
+                stars[newRating - 1]++;
+            }
+            count++;
+            sum += newRating;
+        }
+        statsRepository.applyDelta(courseId, count, sum, stars[0], stars[1], stars[2], stars[3], stars[4]);
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId, CourseChangedEvent.Type.CONTENT_CHANGED, null));
+    }
+
+    private static boolean isStar(int rating) {
+        return rating >= 1 && rating <= 5;
+    }
+
+    /**
+     * Recomputes every course's aggregates from the reviews table. Used for repair, and run
+     * nightly so any drift (e.g. from manual data fixes) does not persist.
+     */
+    @Scheduled(cron = "${app.ratings.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public int rebuildAll() {
+        long started = System.nanoTime();
+        // A review committing mid-rebuild would otherwise create a row the insert then collides with;
+        // it now waits and applies its delta on top of the rebuilt row
+        statsRepository.lockForRebuild();
+        statsRepository.deleteAllRows();
+        int courses = statsRepository.insertFromReviews();
+        // Cached details and pages carry the old ratings; drop them once the new rows are visible
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalogCache.invalidateAll();
+            }
+        });
+        log.info("Rebuilt rating aggregates for {} courses in {} ms", courses, (System.nanoTime() - started) / 1_000_000);
+        return courses;
+    }
+}
@@ -1,12 +1,46 @@
 package com.udemylite.service;
 
+import com.udemylite.dto.CatalogFacets;
+import com.udemylite.dto.CourseBatch;
+import com.udemylite.dto.CourseCount;
+import com.udemylite.dto.CourseDetail;
+import com.udemylite.dto.CourseSummary;
+import com.udemylite.dto.CursorPage;
+import com.udemylite.dto.SearchPage;
+import com.udemylite.dto.Suggestion;
+import com.udemylite.dto.TrendingCourse;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.media.BlobStore;
 import com.udemylite.model.Course;
+import com.udemylite.model.Lesson;
 import com.udemylite.model.User;
+import com.udemylite.repository.CatalogQuery;
 import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.LessonRepository;
+import com.udemylite.search.CourseFacets;
+import com.udemylite.search.CourseSearchIndex;
+import com.udemylite.search.CourseSuggester;
+import com.udemylite.search.SearchHits;
+import com.udemylite.search.TrendingCourses;
+import com.udemylite.security.CurrentUserIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CourseService {
@@ -14,39 +48,318 @@ public class CourseService {
     @Autowired
     private CourseRepository courseRepository;
 
-    public List<Course> getAllCourses() {
-        return courseRepository.findAll();
+    @Autowired
+    private CourseCatalogCache catalogCache;
+
+    @Autowired
+    private CourseSearchIndex searchIndex;
+
+    @Autowired
+    private CourseSuggester suggester;
+
+    @Autowired
+    private CourseFacets facets;
+
+    @Autowired
+    private TrendingCourses trendingCourses;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${app.catalog.page-size.default:20}")
+    private int defaultPageSize;
+
+    @Value("${app.catalog.page-size.max:100}")
+    private int maxPageSize;
+
+    // Ranked results are offset-paginated, so only the first few pages are reachable
+    @Value("${app.search.max-results:1000}")
+    private int maxSearchResults;
+
+    @Value("${app.search.suggest.max-limit:20}")
+    private int maxSuggestions;
+
+    @Value("${app.catalog.batch.max-ids:500}")
+    private int maxBatchIds;
+
+    @Value("${app.trending.max-limit:50}")
+    private int maxTrendingLimit;
+
+    /**
+     * Returns one keyset page of the catalog.
+     * The cursor is the opaque nextCursor of the previous page; it already carries the sort,
+     * so a sort that disagrees with it is rejected. Filters may be combined with any sort.
+     */
+    public CursorPage<CourseSummary> getCatalogPage(String sort, String cursor, Integer size,
+                                                    String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        CatalogQuery.Sort sortKey = parseSort(sort);
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+
+        Long afterId = null;
+        String afterKey = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            if (!parts[0].equals(sortKey.name())) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort");
+            }
+            afterId = Long.valueOf(parts[1]);
+            afterKey = parts.length == 3 ? parts[2] : null;
+        }
+
+        // Ask for one extra row to learn whether another page exists without a COUNT query
+        String categoryFilter = category == null || category.isBlank() ? null : category;
+        CatalogQuery query = new CatalogQuery(sortKey, afterId, afterKey, pageSize + 1, categoryFilter, minPrice, maxPrice);
+        return catalogCache.getPage(query, q -> loadCatalogPage(q, pageSize));
+    }
+
+    private CursorPage<CourseSummary> loadCatalogPage(CatalogQuery query, int pageSize) {
+        List<CourseSummary> rows = courseRepository.findCatalogPage(query);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = encodeCursor(query.sort(), rows.get(pageSize - 1));
+        }
+        return new CursorPage<>(List.copyOf(rows), nextCursor, rows.size());
+    }
+
+    /**
+     * Full-text search over title, category and description.
+     * Ranking happens in the in-memory index; only the returned page is read from the database.
+     */
+    public SearchPage<CourseSummary> searchCourses(String query, Integer page, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        int pageNumber = page == null ? 0 : Math.max(page, 0);
+        int offset = pageNumber * pageSize;
+        if (offset + pageSize > maxSearchResults) {
+            throw new IllegalArgumentException("Search results are limited to the first " + maxSearchResults + " matches");
+        }
+
+        SearchHits hits = searchIndex.search(query, offset, pageSize);
+        List<Long> ids = hits.hits().stream().map(SearchHits.Hit::courseId).toList();
+        Map<Long, CourseSummary> byId = ids.isEmpty() ? Map.of() : courseRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(CourseSummary::id, Function.identity()));
+
+        // Keep the index's ranking; ids the database no longer knows are dropped
+        List<CourseSummary> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CourseSummary summary = byId.get(id);
+            if (summary != null) {
+                items.add(summary);
+            }
+        }
+        return new SearchPage<>(query, items, hits.total(), pageNumber, pageSize);
+    }
+
+    public CatalogFacets getFacets() {
+        return facets.getFacets();
+    }
+
+    public List<Suggestion> suggest(String prefix, Integer limit) {
+        int k = limit == null ? 10 : Math.min(Math.max(limit, 1), maxSuggestions);
+        return suggester.suggest(prefix, k);
+    }
+
+    public CourseDetail getCourseDetail(Long id) {
+        return catalogCache.getDetail(id, courseId -> courseRepository.findDetailById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found")));
+    }
+
+    /**
+     * Resolves many courses at once for multi-course pages. Ids whose detail is cached are answered
+     * from it; the rest are fetched with a single IN query.
+     */
+    public CourseBatch getCourseBatch(List<Long> ids) {
+        LinkedHashSet<Long> requested = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                requested.add(id);
+            }
+        }
+        if (requested.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " ids per batch");
+        }
+
+        Map<Long, CourseSummary> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            CourseDetail cached = catalogCache.peekDetail(id);
+            if (cached != null) {
+                found.put(id, cached.toSummary());
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (CourseSummary summary : courseRepository.findSummariesByIdIn(missing)) {
+                found.put(summary.id(), summary);
+            }
+        }
+
+        List<CourseSummary> items = new ArrayList<>(found.size());
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : requested) {
+            CourseSummary summary = found.get(id);
+            if (summary != null) {
+                items.add(summary);
+            } else {
+                notFound.add(id);
+            }
+        }
+        return new CourseBatch(items, notFound);
+    }
+
+    public List<TrendingCourse> getTrending(String window, Integer limit) {
+        TrendingCourses.Window trendingWindow = TrendingCourses.Window.fromLabel(window == null ? "7d" : window);
+        int n = limit == null ? 10 : Math.min(Math.max(limit, 1), maxTrendingLimit);
+        List<CourseCount> top = trendingCourses.top(trendingWindow, n);
+
+        Map<Long, CourseSummary> summaries = new HashMap<>();
+        for (CourseSummary summary : getCourseBatch(top.stream().map(CourseCount::courseId).toList()).items()) {
+            summaries.put(summary.id(), summary);
+        }
+        List<TrendingCourse> trending = new ArrayList<>(top.size());
+        for (CourseCount count : top) {
+            CourseSummary summary = summaries.get(count.courseId());
+            if (summary != null) {
+                trending.add(new TrendingCourse(summary, count.count()));
+            }
+        }
+        return trending;
     }
 
     public Course getCourseById(Long id) {
         return courseRepository.findById(id).orElseThrow(() -> new RuntimeException("Course not found"));
     }
 
+    @Transactional
     public Course createCourse(Course course, User instructor) {
         course.setInstructor(instructor);
-        return courseRepository.save(course);
+        course.setCategory(blankToNull(course.getCategory()));
+        Course saved = courseRepository.save(course);
+        eventPublisher.publishEvent(new CourseChangedEvent(saved.getId(), CourseChangedEvent.Type.CREATED, saved));
+        return saved;
     }
 
-    public Course updateCourse(Long id, Course courseDetails, User instructor) {
+    @Transactional
+    public Course updateCourse(Long id, Course courseDetails, CurrentUserIdentity instructor) {
         Course course = getCourseById(id);
-        if (!course.getInstructor().getId().equals(instructor.getId())) {
+        if (!course.getInstructor().getId().equals(instructor.id())) {
             throw new RuntimeException("Unauthorized to update this course");
         }
         course.setTitle(courseDetails.getTitle());
         course.setDescription(courseDetails.getDescription());
         course.setPrice(courseDetails.getPrice());
-        return courseRepository.save(course);
+        // Clients that don't edit the category (e.g. older forms) leave it out rather than clear it;
+        // a cleared field arrives blank
+        if (courseDetails.getCategory() != null) {
+            course.setCategory(blankToNull(courseDetails.getCategory()));
+        }
+        Course saved = courseRepository.save(course);
+        eventPublisher.publishEvent(new CourseChangedEvent(saved.getId(), CourseChangedEvent.Type.UPDATED, saved));
+        return saved;
     }
 
-    public void deleteCourse(Long id, User instructor) {
+    // Uncategorized is always NULL, so a blank category neither sorts nor filters as a named one
+    private static String blankToNull(String category) {
+        return category == null || category.isBlank() ? null : category;
+    }
+
+    @Transactional
+    public void deleteCourse(Long id, CurrentUserIdentity instructor) {
         Course course = getCourseById(id);
-        if (!course.getInstructor().getId().equals(instructor.getId())) {
+        if (!course.getInstructor().getId().equals(instructor.id())) {
             throw new RuntimeException("Unauthorized to delete this course");
         }
+        // Lessons go with the course by cascade, so their blob references are given up here
+        lessonRepository.findVideoBlobsByCourseId(id).forEach(blobStore::release);
         courseRepository.delete(course);
+        eventPublisher.publishEvent(new CourseChangedEvent(id, CourseChangedEvent.Type.DELETED, null));
+    }
+
+    /**
+     * Copies a course and its lessons for its own instructor. Lesson media is shared by
+     * reference through the blob store, so no file is copied whatever the course size.
+     */
+    @Transactional
+    public Course duplicateCourse(Long id, CurrentUserIdentity instructor) {
+        Course source = getCourseById(id);
+        if (!source.getInstructor().getId().equals(instructor.id())) {
+            throw new RuntimeException("Unauthorized to duplicate this course");
+        }
+        Course copy = new Course();
+        copy.setTitle(source.getTitle() + " (copy)");
+        copy.setDescription(source.getDescription());
+        copy.setPrice(source.getPrice());
+        copy.setCategory(source.getCategory());
+        copy.setInstructor(source.getInstructor());
+        Course saved = courseRepository.save(copy);
+
+        List<Lesson> lessons = new ArrayList<>();
+        for (Lesson lesson : lessonRepository.findByCourseIdOrderByOrderIndex(id)) {
+            Lesson lessonCopy = new Lesson(null, lesson.getTitle(), lesson.getContent(), lesson.getVideoUrl(), lesson.getOrderIndex(), saved);
+            lessonCopy.setYoutubeUrl(lesson.getYoutubeUrl());
+            lessonCopy.setVideoFile(lesson.getVideoFile());
+            lessonCopy.setVideoBlob(lesson.getVideoBlob());
+            blobStore.acquire(lesson.getVideoBlob());
+            lessons.add(lessonCopy);
+        }
+        saved.setLessons(new HashSet<>(lessonRepository.saveAll(lessons)));
+        eventPublisher.publishEvent(new CourseChangedEvent(saved.getId(), CourseChangedEvent.Type.CREATED, saved));
+        return saved;
     }
 
     public List<Course> getCoursesByInstructor(Long instructorId) {
         return courseRepository.findByInstructorId(instructorId);
     }
+
+    public List<CourseSummary> getCourseSummariesByInstructor(Long instructorId) {
+        return courseRepository.findSummariesByInstructorId(instructorId);
+    }
+
+    private CatalogQuery.Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return CatalogQuery.Sort.ID;
+        }
+        try {
+            return CatalogQuery.Sort.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+    }
+
+    private String encodeCursor(CatalogQuery.Sort sort, CourseSummary last) {
+        String key = switch (sort) {
+            case PRICE -> last.price().toPlainString();
+            case CATEGORY -> last.category();
+            default -> "";
+        };
+        // The key goes last so a category containing '|' still splits cleanly; a NULL category has none
+        String raw = sort.name() + "|" + last.id() + (key != null ? "|" + key : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            boolean nullCategory = parts.length == 2 && parts[0].equals(CatalogQuery.Sort.CATEGORY.name());
+            if (parts.length != 3 && !nullCategory) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            Long.parseLong(parts[1]);
+            if (parts[0].equals(CatalogQuery.Sort.PRICE.name())) {
+                new BigDecimal(parts[2]);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and bad Base64 both land here
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
 }
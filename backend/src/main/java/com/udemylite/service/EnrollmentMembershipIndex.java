@@ -0,0 +1,169 @@
+package com.udemylite.service;
+
+import com.udemylite.cache.BoundedCache;
+import com.udemylite.cache.CacheStats;
+import com.udemylite.event.BulkEnrollmentEvent;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.event.EnrollmentChangedEvent;
+import com.udemylite.repository.EnrollmentRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers "is this student enrolled in this course" from memory for lesson access checks.
+ *
+ * Each course's enrolled student ids are held as a compressed bitmap, loaded on first use and
+ * kept in a bounded LRU. Enrollment events add and remove ids in place; a course that is not
+ * loaded is just fenced so a load already running cannot store a stale set.
+ *
+ * Events only reach the node that committed the change, and after-commit listeners may run out
+ * of order, so a bitmap can miss a student who has since enrolled. A hit is trusted; a miss is
+ * confirmed against the database and the id added when it turns out to be enrolled. The TTL
+ * bounds how long a removal made elsewhere (another node, or by hand in SQL) can go unnoticed.
+ */
+@Component
+public class EnrollmentMembershipIndex {
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    private final BoundedCache<Long, RoaringBitmap> members;
+
+    private final LongAdder batchFromBitmap = new LongAdder();
+    private final LongAdder batchFromDatabase = new LongAdder();
+
+    public EnrollmentMembershipIndex(@Value("${app.cache.course-members.max-size:5000}") int maxSize,
+                                     @Value("${app.cache.course-members.ttl:30m}") Duration ttl) {
+        this.members = new BoundedCache<>("course-members", maxSize, ttl);
+    }
+
+    public boolean isEnrolled(Long studentId, Long courseId) {
+        if (studentId >>> 32 != 0) {
+            // Bitmaps hold 32-bit ids
+            return enrollmentRepository.existsByStudentIdAndCourseId(studentId, courseId);
+        }
+        RoaringBitmap bitmap = members.get(courseId, this::load);
+        synchronized (bitmap) {
+            if (bitmap.contains(studentId.intValue())) {
+                return true;
+            }
+        }
+        if (!enrollmentRepository.existsByStudentIdAndCourseId(studentId, courseId)) {
+            return false;
+        }
+        synchronized (bitmap) {
+            bitmap.add(studentId.intValue());
+        }
+        return true;
+    }
+
+    /**
+     * Enrollment flags of one student for many courses, in the given order. Courses whose bitmap is
+     * loaded are answered from memory; the rest share one IN query rather than loading a bitmap each.
+     * These lookups never load, so they are counted apart from the cache's hits and misses.
+     */
+    public Map<Long, Boolean> enrolledIn(Long studentId, Collection<Long> courseIds) {
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long courseId : courseIds) {
+            RoaringBitmap bitmap = studentId >>> 32 == 0 ? members.peek(courseId) : null;
+            if (bitmap != null) {
+                synchronized (bitmap) {
+                    result.put(courseId, bitmap.contains(studentId.intValue()));
+                }
+            } else {
+                result.put(courseId, false);
+                unknown.add(courseId);
+            }
+        }
+        batchFromBitmap.add(courseIds.size() - unknown.size());
+        batchFromDatabase.add(unknown.size());
+        if (!unknown.isEmpty()) {
+            Set<Long> enrolled = new HashSet<>(enrollmentRepository.findEnrolledCourseIds(studentId, unknown));
+            for (Long courseId : unknown) {
+                result.put(courseId, enrolled.contains(courseId));
+            }
+        }
+        return result;
+    }
+
+    // After commit, so a bulk enrollment is not visible here before it is visible to a fresh load
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        apply(event.courseId(), List.of(event.studentId()), event.type() == EnrollmentChangedEvent.Type.ENROLLED);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkEnrollment(BulkEnrollmentEvent event) {
+        event.studentIdsByCourse().forEach((courseId, studentIds) -> apply(courseId, studentIds, true));
+    }
+
+    private void apply(Long courseId, List<Long> studentIds, boolean enrolled) {
+        RoaringBitmap bitmap = members.peek(courseId);
+        if (bitmap == null || studentIds.stream().anyMatch(id -> id >>> 32 != 0)) {
+            members.invalidate(courseId);
+            return;
+        }
+        synchronized (bitmap) {
+            for (Long studentId : studentIds) {
+                if (enrolled) {
+                    bitmap.add(studentId.intValue());
+                } else {
+                    bitmap.remove(studentId.intValue());
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        if (event.type() == CourseChangedEvent.Type.DELETED) {
+            members.invalidate(event.courseId());
+        }
+    }
+
+    public CacheStats cacheStats() {
+        return members.stats();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cache", members.stats());
+        stats.put("members", members.sum(bitmap -> {
+            synchronized (bitmap) {
+                return bitmap.getLongCardinality();
+            }
+        }));
+        stats.put("batchLookups", Map.of("fromBitmap", batchFromBitmap.sum(), "fromDatabase", batchFromDatabase.sum()));
+        stats.put("bitmapBytes", members.sum(bitmap -> {
+            synchronized (bitmap) {
+                return bitmap.getLongSizeInBytes();
+            }
+        }));
+        return stats;
+    }
+
+    private RoaringBitmap load(Long courseId) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (Long studentId : enrollmentRepository.findStudentIdsByCourseId(courseId)) {
+            if (studentId >>> 32 == 0) {
+                bitmap.add(studentId.intValue());
+            }
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+}
@@ -1,15 +1,32 @@
 package com.udemylite.service;
 
+import com.udemylite.dto.CursorPage;
+import com.udemylite.dto.EnrollmentDashboard;
+import com.udemylite.dto.InstructorEnrollment;
+import com.udemylite.event.EnrollmentChangedEvent;
 import com.udemylite.model.Course; // <-- Import Course
 import com.udemylite.model.Enrollment;
 import com.udemylite.model.User;
 import com.udemylite.repository.EnrollmentRepository;
 import com.udemylite.repository.CourseRepository; // <-- Import CourseRepository
+import com.udemylite.security.CurrentUserIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class EnrollmentService {
@@ -21,31 +38,71 @@ public class EnrollmentService {
     @Autowired
     private CourseRepository courseRepository; 
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EnrollmentMembershipIndex membershipIndex;
+
+    @Value("${app.catalog.batch.max-ids:500}")
+    private int maxCheckIds;
+
+    @Value("${app.enrollments.page-size.default:50}")
+    private int defaultPageSize;
+
+    @Value("${app.enrollments.page-size.max:200}")
+    private int maxPageSize;
+
+    // Longest per-day series the dashboard can ask for
+    private static final int MAX_DASHBOARD_DAYS = 365;
+
+    // Inserts only when the course exists and is not taught by the student; a duplicate is a no-op
+    // thanks to uk_enrollments_student_course (ensured at startup by EnrollmentConstraint), so
+    // concurrent double-clicks cannot create two rows
+    private static final String ENROLL_SQL = "INSERT INTO enrollments (student_id, course_id, enrollment_date) "
+            + "SELECT ?, c.id, ? FROM courses c WHERE c.id = ? AND c.instructor_id <> ? "
+            + "ON CONFLICT (student_id, course_id) DO NOTHING RETURNING id";
+
+    /**
+     * Enrolls the student, or returns the existing enrollment if there already is one, so retries
+     * are safe. The common case is the single INSERT above; the failure cases cost one more lookup
+     * to tell them apart.
+     */
+    @Transactional
     public Enrollment enrollStudent(Long courseId, User student) {
-        if (enrollmentRepository.existsByStudentIdAndCourseId(student.getId(), courseId)) {
-            throw new RuntimeException("Student already enrolled in this course");
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> inserted = jdbcTemplate.queryForList(ENROLL_SQL, Long.class,
+                student.getId(), Timestamp.valueOf(now), courseId, student.getId());
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new EnrollmentChangedEvent(courseId, student.getId(),
+                    EnrollmentChangedEvent.Type.ENROLLED, now));
+            // Course is a lazy reference: the JSON view of an enrollment does not include it
+            return new Enrollment(inserted.get(0), student, courseRepository.getReferenceById(courseId), now, null);
         }
 
-        // Find the actual course from the database
+        Optional<Enrollment> existing = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
-
-        // Check if the student is the instructor of this course
         if (course.getInstructor().getId().equals(student.getId())) {
             throw new RuntimeException("Instructors cannot enroll in their own courses");
         }
-
-        Enrollment enrollment = new Enrollment();
-        enrollment.setStudent(student);
-        enrollment.setCourse(course); // Set the managed entity
-        enrollment.setEnrollmentDate(LocalDateTime.now());
-        return enrollmentRepository.save(enrollment);
+        // The conflicting row was removed between the insert and the lookup; let the client retry
+        throw new RuntimeException("Enrollment changed concurrently, please retry");
     }
 
-    public void unenrollStudent(Long courseId, User student) {
-        Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId)
+    @Transactional
+    public void unenrollStudent(Long courseId, CurrentUserIdentity student) {
+        Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(student.id(), courseId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found"));
         enrollmentRepository.delete(enrollment);
+        eventPublisher.publishEvent(new EnrollmentChangedEvent(courseId, student.id(),
+                EnrollmentChangedEvent.Type.UNENROLLED, enrollment.getEnrollmentDate()));
     }
 
     public List<Enrollment> getEnrollmentsByStudent(Long studentId) {
@@ -54,11 +111,67 @@ public class EnrollmentService {
         return enrollmentRepository.findByStudentId(studentId);
     }
 
-    public List<Enrollment> getEnrollmentsByInstructor(Long instructorId) {
-        return enrollmentRepository.findByCourse_Instructor_Id(instructorId);
+    /**
+     * Enrollments in the instructor's courses, newest first, one keyset page at a time.
+     * courseId optionally narrows the listing to one course.
+     */
+    public CursorPage<InstructorEnrollment> getEnrollmentsByInstructor(Long instructorId, Long courseId,
+                                                                      String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+        long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : decodeCursor(cursor);
+        List<InstructorEnrollment> rows = enrollmentRepository.findInstructorPage(instructorId, courseId, beforeId,
+                PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = encodeCursor(rows.get(pageSize - 1).id());
+        }
+        return new CursorPage<>(List.copyOf(rows), nextCursor, rows.size());
+    }
+
+    // Totals are summed from the per-course rows, so the whole dashboard is two aggregate queries
+    public EnrollmentDashboard getInstructorDashboard(Long instructorId, Integer days) {
+        int window = days == null ? 30 : Math.min(Math.max(days, 1), MAX_DASHBOARD_DAYS);
+        List<EnrollmentDashboard.CourseStats> courses = enrollmentRepository.countByCourseForInstructor(instructorId);
+        LocalDateTime since = LocalDate.now().minusDays(window - 1).atStartOfDay();
+        List<EnrollmentDashboard.DailyCount> perDay = enrollmentRepository.countPerDayForInstructor(instructorId, since);
+
+        long enrollments = 0;
+        long completed = 0;
+        for (EnrollmentDashboard.CourseStats course : courses) {
+            enrollments += course.enrollments();
+            completed += course.completed();
+        }
+        return new EnrollmentDashboard(enrollments, completed, EnrollmentDashboard.ratio(completed, enrollments),
+                courses, perDay);
     }
 
     public boolean isStudentEnrolled(Long studentId, Long courseId) {
-        return enrollmentRepository.existsByStudentIdAndCourseId(studentId, courseId);
+        return membershipIndex.isEnrolled(studentId, courseId);
+    }
+
+    public Map<Long, Boolean> checkEnrollments(Long studentId, List<Long> courseIds) {
+        LinkedHashSet<Long> ids = new LinkedHashSet<>();
+        for (Long courseId : courseIds) {
+            if (courseId != null) {
+                ids.add(courseId);
+            }
+        }
+        if (ids.size() > maxCheckIds) {
+            throw new IllegalArgumentException("At most " + maxCheckIds + " course ids per check");
+        }
+        return ids.isEmpty() ? Map.of() : membershipIndex.enrolledIn(studentId, ids);
+    }
+
+    private String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 }
@@ -0,0 +1,225 @@
+package com.udemylite.service;
+
+import com.udemylite.cache.BoundedCache;
+import com.udemylite.dto.CourseProgress;
+import com.udemylite.model.Lesson;
+import com.udemylite.model.LessonProgress;
+import com.udemylite.repository.EnrollmentRepository;
+import com.udemylite.repository.LessonProgressRepository;
+import com.udemylite.repository.LessonRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-lesson progress. Starting and completing a lesson are written through; video position
+ * heartbeats are coalesced in memory (last position per student and lesson wins) and flushed
+ * as one batched upsert on an interval, so the database sees at most one write per active
+ * viewer per flush rather than one per heartbeat.
+ */
+@Service
+public class LessonProgressService {
+
+    private static final Logger log = LoggerFactory.getLogger(LessonProgressService.class);
+
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    // Heartbeats only move the position; started_at keeps the first value
+    private static final String HEARTBEAT_SQL = "INSERT INTO lesson_progress "
+            + "(student_id, lesson_id, course_id, position_seconds, started_at, updated_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (student_id, lesson_id) DO UPDATE SET "
+            + "position_seconds = EXCLUDED.position_seconds, updated_at = EXCLUDED.updated_at";
+
+    private static final String START_SQL = "INSERT INTO lesson_progress "
+            + "(student_id, lesson_id, course_id, position_seconds, started_at, updated_at) VALUES (?, ?, ?, 0, ?, ?) "
+            + "ON CONFLICT (student_id, lesson_id) DO NOTHING";
+
+    private static final String COMPLETE_SQL = "INSERT INTO lesson_progress "
+            + "(student_id, lesson_id, course_id, position_seconds, started_at, completed_at, updated_at) VALUES (?, ?, ?, 0, ?, ?, ?) "
+            + "ON CONFLICT (student_id, lesson_id) DO UPDATE SET "
+            + "completed_at = COALESCE(lesson_progress.completed_at, EXCLUDED.completed_at), updated_at = EXCLUDED.updated_at";
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private LessonProgressRepository progressRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private EnrollmentMembershipIndex membershipIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // A lesson never moves to another course, so the mapping only needs a size bound
+    private final BoundedCache<Long, Long> lessonCourses = new BoundedCache<>("lesson-courses", 50_000, Duration.ofHours(1));
+
+    private final ConcurrentHashMap<ProgressKey, Heartbeat> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder heartbeats = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private volatile long lastFlushMillis;
+
+    public void heartbeat(Long studentId, Long lessonId, int positionSeconds) {
+        Long courseId = checkAccess(studentId, lessonId);
+        pending.put(new ProgressKey(studentId, lessonId), new Heartbeat(courseId, Math.max(positionSeconds, 0), LocalDateTime.now()));
+        heartbeats.increment();
+    }
+
+    public void startLesson(Long studentId, Long lessonId) {
+        Long courseId = checkAccess(studentId, lessonId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(START_SQL, studentId, lessonId, courseId, now, now);
+    }
+
+    // Completing the last lesson of a course stamps the enrollment's completionDate
+    @Transactional
+    public CourseProgress completeLesson(Long studentId, Long lessonId) {
+        Long courseId = checkAccess(studentId, lessonId);
+        // Without the lock, two lessons completed at once each count only their own row under
+        // READ COMMITTED, and neither marks the enrollment complete
+        if (enrollmentRepository.lockByStudentIdAndCourseId(studentId, courseId).isEmpty()) {
+            throw new RuntimeException("Access denied: Student not enrolled in this course");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp ts = Timestamp.valueOf(now);
+        jdbcTemplate.update(COMPLETE_SQL, studentId, lessonId, courseId, ts, ts, ts);
+
+        long total = lessonRepository.countByCourseId(courseId);
+        if (total > 0 && progressRepository.countCompleted(studentId, courseId) >= total) {
+            enrollmentRepository.markCompleted(studentId, courseId, now);
+        }
+        return getCourseProgress(studentId, courseId);
+    }
+
+    public CourseProgress getCourseProgress(Long studentId, Long courseId) {
+        if (!membershipIndex.isEnrolled(studentId, courseId)) {
+            throw new RuntimeException("Access denied: Student not enrolled in this course");
+        }
+        Map<Long, LessonProgress> rows = new HashMap<>();
+        for (LessonProgress row : progressRepository.findByStudentIdAndCourseId(studentId, courseId)) {
+            rows.put(row.getLessonId(), row);
+        }
+
+        List<Lesson> lessons = lessonRepository.findByCourseIdOrderByOrderIndex(courseId);
+        List<CourseProgress.LessonState> states = new ArrayList<>(lessons.size());
+        int completed = 0;
+        for (Lesson lesson : lessons) {
+            LessonProgress row = rows.get(lesson.getId());
+            // A heartbeat that has not been flushed yet is newer than the stored position
+            Heartbeat unflushed = pending.get(new ProgressKey(studentId, lesson.getId()));
+            int position = unflushed != null ? unflushed.positionSeconds() : row != null ? row.getPositionSeconds() : 0;
+            LocalDateTime startedAt = row != null ? row.getStartedAt() : unflushed != null ? unflushed.at() : null;
+            LocalDateTime completedAt = row != null ? row.getCompletedAt() : null;
+            if (completedAt != null) {
+                completed++;
+            }
+            states.add(new CourseProgress.LessonState(lesson.getId(), lesson.getTitle(), position, startedAt, completedAt));
+        }
+        double percent = lessons.isEmpty() ? 0.0 : completed * 100.0 / lessons.size();
+        LocalDateTime completionDate = enrollmentRepository.findCompletionDate(studentId, courseId).orElse(null);
+        return new CourseProgress(courseId, lessons.size(), completed, percent, completionDate, states);
+    }
+
+    /**
+     * Writes the coalesced heartbeats. Each entry is removed before it is written, so a heartbeat
+     * arriving mid-flush lands in a fresh entry for the next round; a failed batch is put back
+     * unless a newer heartbeat has replaced it meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${app.progress.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<Map.Entry<ProgressKey, Heartbeat>> batch = new ArrayList<>(Math.min(pending.size(), FLUSH_BATCH_SIZE));
+        for (ProgressKey key : pending.keySet()) {
+            Heartbeat heartbeat = pending.remove(key);
+            if (heartbeat != null) {
+                batch.add(Map.entry(key, heartbeat));
+            }
+            if (batch.size() == FLUSH_BATCH_SIZE) {
+                write(batch);
+                batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        flushes.increment();
+        lastFlushMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("heartbeats", heartbeats.sum());
+        stats.put("pending", pending.size());
+        stats.put("flushedRows", flushedRows.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        return stats;
+    }
+
+    private void write(List<Map.Entry<ProgressKey, Heartbeat>> batch) {
+        try {
+            jdbcTemplate.batchUpdate(HEARTBEAT_SQL, batch, batch.size(), (ps, entry) -> {
+                Timestamp at = Timestamp.valueOf(entry.getValue().at());
+                ps.setLong(1, entry.getKey().studentId());
+                ps.setLong(2, entry.getKey().lessonId());
+                ps.setLong(3, entry.getValue().courseId());
+                ps.setInt(4, entry.getValue().positionSeconds());
+                ps.setTimestamp(5, at);
+                ps.setTimestamp(6, at);
+            });
+            flushedRows.add(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Progress flush of {} rows failed, will retry: {}", batch.size(), e.getMessage());
+            for (Map.Entry<ProgressKey, Heartbeat> entry : batch) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Returns the lesson's course after checking the student is enrolled in it
+    private Long checkAccess(Long studentId, Long lessonId) {
+        Long courseId = lessonCourses.get(lessonId, id -> lessonRepository.findCourseIdById(id).orElse(null));
+        if (courseId == null) {
+            throw new RuntimeException("Lesson not found");
+        }
+        if (!membershipIndex.isEnrolled(studentId, courseId)) {
+            throw new RuntimeException("Access denied: Student not enrolled in this course");
+        }
+        return courseId;
+    }
+
+    private record ProgressKey(Long studentId, Long lessonId) {
+    }
+
+    private record Heartbeat(Long courseId, int positionSeconds, LocalDateTime at) {
+    }
+}
@@ -1,14 +1,25 @@
 package com.udemylite.service;
 
+import com.udemylite.dto.LessonVideo;
+import com.udemylite.dto.ListFingerprint;
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.event.LessonChangedEvent;
+import com.udemylite.media.BlobStore;
+import com.udemylite.media.MediaFile;
+import com.udemylite.media.MediaStorage;
 import com.udemylite.model.Course;
 import com.udemylite.model.Enrollment;
 import com.udemylite.model.Lesson;
 import com.udemylite.model.User;
-import com.udemylite.repository.EnrollmentRepository;
+import com.udemylite.repository.CourseRepository;
 import com.udemylite.repository.LessonRepository;
+import com.udemylite.security.CurrentUserIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -18,55 +29,123 @@ public class LessonService {
     private LessonRepository lessonRepository;
 
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
+    private EnrollmentMembershipIndex membershipIndex;
 
-    public List<Lesson> getLessonsByCourse(Long courseId, User user) {
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    public List<Lesson> getLessonsByCourse(Long courseId, CurrentUserIdentity user) {
         checkAccessToCourse(courseId, user);
         return lessonRepository.findByCourseIdOrderByOrderIndex(courseId);
     }
 
-    public Lesson getLessonById(Long lessonId, User user) {
+    public ListFingerprint getLessonsFingerprint(Long courseId, CurrentUserIdentity user) {
+        checkAccessToCourse(courseId, user);
+        return lessonRepository.fingerprintByCourseId(courseId);
+    }
+
+    public Lesson getLessonById(Long lessonId, CurrentUserIdentity user) {
         Lesson lesson = lessonRepository.findById(lessonId).orElseThrow(() -> new RuntimeException("Lesson not found"));
         checkAccessToCourse(lesson.getCourse().getId(), user);
         return lesson;
     }
 
-    public Lesson createLesson(Lesson lesson, Long courseId, User instructor) {
-        Course course = new Course();
-        course.setId(courseId);
+    // Called for every range request while seeking, so this is a single narrow query
+    public MediaFile getLessonVideo(Long courseId, Long lessonId, CurrentUserIdentity user) {
+        checkAccessToCourse(courseId, user);
+        LessonVideo video = lessonRepository.findVideo(courseId, lessonId)
+                .orElseThrow(() -> new RuntimeException("Video not found"));
+        if (video.blobHash() != null) {
+            return blobStore.open(video.blobHash(), video.contentType());
+        }
+        if (video.file() != null) {
+            return MediaFile.of(mediaStorage.resolve(video.file()));
+        }
+        throw new RuntimeException("Video not found");
+    }
+
+    @Transactional
+    public Lesson createLesson(Lesson lesson, Long courseId, CurrentUserIdentity instructor) {
+        // Load the course: a bare new Course() has no instructor to check against
+        Course course = courseRepository.findById(courseId).orElseThrow(() -> new RuntimeException("Course not found"));
         lesson.setCourse(course);
-        if (!course.getInstructor().getId().equals(instructor.getId())) {
+        // Blob references are only handed out by uploads and course duplication, which count them;
+        // videoFile is placed by operators, never taken from a request
+        lesson.setVideoBlob(null);
+        lesson.setVideoFile(null);
+        if (!course.getInstructor().getId().equals(instructor.id())) {
             throw new RuntimeException("Unauthorized to create lesson for this course");
         }
-        return lessonRepository.save(lesson);
+        Lesson saved = lessonRepository.save(lesson);
+        publishLessonsChanged(courseId, saved.getId(), LessonChangedEvent.Type.CREATED);
+        return saved;
     }
 
-    public Lesson updateLesson(Long lessonId, Lesson lessonDetails, User instructor) {
+    @Transactional
+    public Lesson updateLesson(Long lessonId, Lesson lessonDetails, CurrentUserIdentity instructor) {
         Lesson lesson = lessonRepository.findById(lessonId).orElseThrow(() -> new RuntimeException("Lesson not found"));
-        if (!lesson.getCourse().getInstructor().getId().equals(instructor.getId())) {
+        if (!lesson.getCourse().getInstructor().getId().equals(instructor.id())) {
             throw new RuntimeException("Unauthorized to update this lesson");
         }
         lesson.setTitle(lessonDetails.getTitle());
         lesson.setContent(lessonDetails.getContent());
         lesson.setVideoUrl(lessonDetails.getVideoUrl());
+        // videoFile and videoBlob are not client-editable: a path could point at another course's media
         lesson.setOrderIndex(lessonDetails.getOrderIndex());
-        return lessonRepository.save(lesson);
+        Lesson saved = lessonRepository.save(lesson);
+        publishLessonsChanged(lesson.getCourse().getId(), lessonId, LessonChangedEvent.Type.UPDATED);
+        return saved;
     }
 
-    public void deleteLesson(Long lessonId, User instructor) {
+    // Joins the caller's transaction when an upload is finalized
+    @Transactional
+    public Lesson attachVideo(Long lessonId, String blobHash, CurrentUserIdentity instructor) {
         Lesson lesson = lessonRepository.findById(lessonId).orElseThrow(() -> new RuntimeException("Lesson not found"));
-        if (!lesson.getCourse().getInstructor().getId().equals(instructor.getId())) {
+        if (!lesson.getCourse().getInstructor().getId().equals(instructor.id())) {
+            throw new RuntimeException("Unauthorized to update this lesson");
+        }
+        // The caller already holds the new blob's reference; the old one is given up here
+        blobStore.release(lesson.getVideoBlob());
+        lesson.setVideoBlob(blobHash);
+        lesson.setVideoFile(null);
+        Lesson saved = lessonRepository.save(lesson);
+        publishLessonsChanged(lesson.getCourse().getId(), lessonId, LessonChangedEvent.Type.UPDATED);
+        return saved;
+    }
+
+    @Transactional
+    public void deleteLesson(Long lessonId, CurrentUserIdentity instructor) {
+        Lesson lesson = lessonRepository.findById(lessonId).orElseThrow(() -> new RuntimeException("Lesson not found"));
+        if (!lesson.getCourse().getInstructor().getId().equals(instructor.id())) {
             throw new RuntimeException("Unauthorized to delete this lesson");
         }
+        Long courseId = lesson.getCourse().getId();
+        blobStore.release(lesson.getVideoBlob());
         lessonRepository.delete(lesson);
+        publishLessonsChanged(courseId, lessonId, LessonChangedEvent.Type.DELETED);
+    }
+
+    private void publishLessonsChanged(Long courseId, Long lessonId, LessonChangedEvent.Type type) {
+        courseRepository.touch(courseId, LocalDateTime.now());
+        eventPublisher.publishEvent(new LessonChangedEvent(lessonId, courseId, type));
+        eventPublisher.publishEvent(new CourseChangedEvent(courseId, CourseChangedEvent.Type.CONTENT_CHANGED, null));
     }
 
-    private void checkAccessToCourse(Long courseId, User user) {
-        if (user.getRole() == User.Role.ADMIN || user.getRole() == User.Role.INSTRUCTOR) {
+    public void checkAccessToCourse(Long courseId, CurrentUserIdentity user) {
+        if (user.hasRole(User.Role.ADMIN) || user.hasRole(User.Role.INSTRUCTOR)) {
             return; // Admins and instructors have access
         }
-        if (user.getRole() == User.Role.STUDENT) {
-            boolean isEnrolled = enrollmentRepository.existsByStudentIdAndCourseId(user.getId(), courseId);
+        if (user.hasRole(User.Role.STUDENT)) {
+            boolean isEnrolled = membershipIndex.isEnrolled(user.id(), courseId);
             if (!isEnrolled) {
                 throw new RuntimeException("Access denied: Student not enrolled in this course");
             }
@@ -0,0 +1,368 @@
+package com.udemylite.service;
+
+import com.udemylite.dto.UploadInitRequest;
+import com.udemylite.dto.UploadStatus;
+import com.udemylite.media.BlobStore;
+import com.udemylite.media.MediaStorage;
+import com.udemylite.model.Lesson;
+import com.udemylite.model.UploadSession;
+import com.udemylite.repository.LessonRepository;
+import com.udemylite.repository.UploadSessionRepository;
+import com.udemylite.security.CurrentUserIdentity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable lesson video uploads. Init preallocates the target file; each chunk is streamed from
+ * the request through a fixed buffer straight to its offset in that file and hashed on the way,
+ * so memory use doesn't depend on chunk or file size. No transaction is open while bytes move;
+ * the session row is locked only to record a chunk once its SHA-256 matches and it is forced to
+ * disk. Completing the session moves the file into the blob store and attaches it to the lesson.
+ *
+ * A chunk is written by one request at a time and never again once it is recorded, so a bad
+ * re-send cannot damage it, and completion, which needs every chunk recorded, never hashes the
+ * file while it is being written.
+ */
+@Service
+public class LessonUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(LessonUploadService.class);
+
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    // Bitmap column length in bits
+    private static final int MAX_CHUNKS = 8192 * 8;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository sessionRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private LessonService lessonService;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // "uploadId:index" of chunks being written right now
+    private final Set<String> chunksInFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.uploads.chunk-size:8MB}")
+    private DataSize defaultChunkSize;
+
+    @Value("${app.uploads.max-size:20GB}")
+    private DataSize maxSize;
+
+    @Value("${app.uploads.expire-after:24h}")
+    private Duration expireAfter;
+
+    public UploadStatus start(Long courseId, Long lessonId, UploadInitRequest request, CurrentUserIdentity instructor) throws IOException {
+        Lesson lesson = lessonRepository.findById(lessonId)
+                .filter(l -> l.getCourse().getId().equals(courseId))
+                .orElseThrow(() -> new RuntimeException("Lesson not found"));
+        if (!lesson.getCourse().getInstructor().getId().equals(instructor.id())) {
+            throw new RuntimeException("Unauthorized to update this lesson");
+        }
+        if (request.size() == null || request.size() <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        if (request.size() > maxSize.toBytes()) {
+            throw new IllegalArgumentException("File exceeds the maximum upload size of " + maxSize);
+        }
+        int chunkSize = request.chunkSize() != null ? request.chunkSize() : (int) defaultChunkSize.toBytes();
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE);
+        }
+        long chunkCount = (request.size() + chunkSize - 1) / chunkSize;
+        if (chunkCount > MAX_CHUNKS) {
+            throw new IllegalArgumentException("Too many chunks, use a chunkSize of at least " + (request.size() / MAX_CHUNKS + 1));
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setLessonId(lessonId);
+        session.setInstructorId(instructor.id());
+        session.setFileName(sanitizeFileName(request.fileName()));
+        session.setTotalSize(request.size());
+        session.setChunkSize(chunkSize);
+        session.setChunkCount((int) chunkCount);
+        session.setReceivedChunks(new byte[0]);
+        session.setStatus(UploadSession.Status.UPLOADING);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setUpdatedAt(session.getCreatedAt());
+
+        // Reserve the full length up front (sparse where the filesystem supports it)
+        Path file = mediaStorage.uploadPath(session.getId());
+        if (Files.getFileStore(file.getParent()).getUsableSpace() < request.size()) {
+            throw new IllegalArgumentException("Not enough storage space for this upload");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(request.size());
+        }
+        return toStatus(sessionRepository.save(session));
+    }
+
+    public UploadStatus getStatus(Long lessonId, String uploadId, CurrentUserIdentity instructor) {
+        return toStatus(findOwned(lessonId, uploadId, instructor));
+    }
+
+    /**
+     * Writes one chunk at offset. The body must be exactly the chunk's length and expectedSha256
+     * (hex) must match; otherwise the chunk stays missing and the client can simply retry it.
+     * Re-sending a chunk that was already received is checked but not written again.
+     */
+    public UploadStatus.ChunkReceipt writeChunk(Long lessonId, String uploadId, long offset, String expectedSha256,
+                                                InputStream body, CurrentUserIdentity instructor) throws IOException {
+        UploadSession session = findOwned(lessonId, uploadId, instructor);
+        if (expectedSha256 == null || expectedSha256.isBlank()) {
+            throw new IllegalArgumentException("X-Chunk-SHA256 header is required");
+        }
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new IllegalArgumentException("offset must be a multiple of the chunk size within the file");
+        }
+        int index = (int) (offset / session.getChunkSize());
+        long length = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+
+        String claim = uploadId + ":" + index;
+        if (!chunksInFlight.add(claim)) {
+            throw new IllegalArgumentException("Chunk " + index + " is already being uploaded");
+        }
+        try {
+            // Checked after claiming the chunk, so no other request can record it meanwhile
+            UploadSession current = transactionTemplate.execute(tx -> lockSession(uploadId));
+            if (current.getStatus() != UploadSession.Status.UPLOADING) {
+                throw new IllegalArgumentException("Upload is already complete");
+            }
+            boolean alreadyReceived = BitSet.valueOf(current.getReceivedChunks()).get(index);
+
+            String actual;
+            if (alreadyReceived) {
+                actual = copy(body, null, offset, length, index);
+            } else {
+                try (FileChannel out = FileChannel.open(mediaStorage.uploadPath(uploadId), StandardOpenOption.WRITE)) {
+                    actual = copy(body, out, offset, length, index);
+                    if (actual.equalsIgnoreCase(expectedSha256.trim())) {
+                        out.force(false);
+                    }
+                }
+            }
+            if (!actual.equalsIgnoreCase(expectedSha256.trim())) {
+                throw new IllegalArgumentException("Checksum mismatch for chunk " + index);
+            }
+
+            UploadSession updated = alreadyReceived ? current : transactionTemplate.execute(tx -> markReceived(uploadId, index));
+            return new UploadStatus.ChunkReceipt(index, offset, length, actual, updated.getReceivedCount(), updated.getChunkCount());
+        } finally {
+            chunksInFlight.remove(claim);
+        }
+    }
+
+    // Streams exactly length bytes from body to out at offset (or nowhere when out is null) and returns their SHA-256
+    private String copy(InputStream body, FileChannel out, long offset, long length, int index) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long received = 0;
+        int n;
+        while ((n = body.read(buffer)) != -1) {
+            // Checked before writing, so an overlong body never reaches the next chunk
+            if (received + n > length) {
+                throw new IllegalArgumentException("Chunk " + index + " is longer than " + length + " bytes");
+            }
+            digest.update(buffer, 0, n);
+            if (out != null) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, n);
+                while (bytes.hasRemaining()) {
+                    out.write(bytes, offset + received + bytes.position());
+                }
+            }
+            received += n;
+        }
+        if (received != length) {
+            throw new IllegalArgumentException("Chunk " + index + " is incomplete: got " + received + " of " + length + " bytes");
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Verifies every chunk arrived, hashes the assembled file and hands it to the blob store,
+     * which keeps it or, if identical bytes are already stored, drops it in favour of the
+     * existing blob. The session is switched to COMPLETING first, which stops chunk writes, and
+     * the file is hashed outside any transaction so no connection is held meanwhile.
+     */
+    public Lesson complete(Long lessonId, String uploadId, CurrentUserIdentity instructor) throws IOException {
+        UploadSession owned = findOwned(lessonId, uploadId, instructor);
+        if (owned.getStatus() == UploadSession.Status.UPLOADING) {
+            transactionTemplate.executeWithoutResult(tx -> beginCompleting(uploadId));
+        }
+        Path file = mediaStorage.uploadPath(uploadId);
+        String sha256 = null;
+        if (owned.getStatus() != UploadSession.Status.COMPLETED) {
+            try {
+                sha256 = BlobStore.sha256(file);
+            } catch (NoSuchFileException e) {
+                // A concurrent completion already moved the file to the blob store
+            }
+        }
+        String hash = sha256;
+        String contentType = MediaTypeFactory.getMediaType(owned.getFileName()).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        return transactionTemplate.execute(tx -> {
+            UploadSession session = lockSession(uploadId);
+            if (session.getStatus() == UploadSession.Status.COMPLETED) {
+                // Retried completion: the blob is already attached
+                return lessonRepository.findById(lessonId).orElseThrow(() -> new RuntimeException("Lesson not found"));
+            }
+            if (hash == null) {
+                throw new RuntimeException("Upload not found");
+            }
+            try {
+                blobStore.ingest(file, hash, contentType);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            session.setStatus(UploadSession.Status.COMPLETED);
+            session.setUpdatedAt(LocalDateTime.now());
+            return lessonService.attachVideo(lessonId, hash, instructor);
+        });
+    }
+
+    public void abort(Long lessonId, String uploadId, CurrentUserIdentity instructor) throws IOException {
+        UploadSession session = findOwned(lessonId, uploadId, instructor);
+        if (session.getStatus() == UploadSession.Status.COMPLETING) {
+            throw new IllegalArgumentException("Upload is being completed");
+        }
+        sessionRepository.delete(session);
+        Files.deleteIfExists(mediaStorage.uploadPath(session.getId()));
+    }
+
+    // Abandoned sessions hold disk space for their full size, so they are swept regularly
+    @Scheduled(cron = "${app.uploads.cleanup-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        List<UploadSession> expired = sessionRepository.findByUpdatedAtBefore(LocalDateTime.now().minus(expireAfter));
+        for (UploadSession session : expired) {
+            try {
+                Files.deleteIfExists(mediaStorage.uploadPath(session.getId()));
+                sessionRepository.delete(session);
+            } catch (IOException e) {
+                log.warn("Could not remove upload {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Purged {} expired upload sessions", expired.size());
+        }
+    }
+
+    private UploadSession markReceived(String uploadId, int index) {
+        UploadSession session = lockSession(uploadId);
+        if (session.getStatus() != UploadSession.Status.UPLOADING) {
+            throw new IllegalArgumentException("Upload is already complete");
+        }
+        BitSet received = BitSet.valueOf(session.getReceivedChunks());
+        if (!received.get(index)) {
+            received.set(index);
+            session.setReceivedChunks(received.toByteArray());
+            session.setReceivedCount(session.getReceivedCount() + 1);
+        }
+        session.setUpdatedAt(LocalDateTime.now());
+        return session;
+    }
+
+    // Refreshed after locking: with open-in-view the request may already hold this session with older state
+    private UploadSession lockSession(String uploadId) {
+        UploadSession session = sessionRepository.findByIdForUpdate(uploadId)
+                .orElseThrow(() -> new RuntimeException("Upload not found"));
+        entityManager.refresh(session);
+        return session;
+    }
+
+    private void beginCompleting(String uploadId) {
+        UploadSession session = lockSession(uploadId);
+        if (session.getStatus() != UploadSession.Status.UPLOADING) {
+            return;
+        }
+        if (session.getReceivedCount() < session.getChunkCount()) {
+            throw new IllegalArgumentException((session.getChunkCount() - session.getReceivedCount()) + " chunks are still missing");
+        }
+        session.setStatus(UploadSession.Status.COMPLETING);
+        session.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private UploadSession findOwned(Long lessonId, String uploadId, CurrentUserIdentity instructor) {
+        UploadSession session = sessionRepository.findById(uploadId)
+                .filter(s -> s.getLessonId().equals(lessonId))
+                .orElseThrow(() -> new RuntimeException("Upload not found"));
+        if (!session.getInstructorId().equals(instructor.id())) {
+            throw new RuntimeException("Unauthorized to access this upload");
+        }
+        return session;
+    }
+
+    private UploadStatus toStatus(UploadSession session) {
+        BitSet received = BitSet.valueOf(session.getReceivedChunks());
+        List<Integer> missing = new ArrayList<>(session.getChunkCount() - session.getReceivedCount());
+        for (int i = received.nextClearBit(0); i < session.getChunkCount(); i = received.nextClearBit(i + 1)) {
+            missing.add(i);
+        }
+        return new UploadStatus(session.getId(), session.getLessonId(), session.getFileName(), session.getTotalSize(),
+                session.getChunkSize(), session.getChunkCount(), session.getReceivedCount(), missing, session.getStatus());
+    }
+
+    private static String sanitizeFileName(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return "video";
+        }
+        String name = fileName.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._ -]", "_");
+        return name.length() > 200 ? name.substring(name.length() - 200) : name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.udemylite.service;
 
+import com.udemylite.dto.ListFingerprint;
+import com.udemylite.event.ReviewChangedEvent;
 import com.udemylite.model.Review;
-import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
 import com.udemylite.repository.ReviewRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.security.CurrentUserIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,36 +20,68 @@ public class ReviewService {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
     private EnrollmentService enrollmentService;
 
-    public Review createReview(Review review, Long courseId, User student) {
-        if (!enrollmentService.isStudentEnrolled(student.getId(), courseId)) {
+    @Autowired
+    private CourseRatingService courseRatingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public Review createReview(Review review, Long courseId, CurrentUserIdentity student) {
+        checkRating(review.getRating());
+        if (!enrollmentService.isStudentEnrolled(student.id(), courseId)) {
             throw new RuntimeException("Cannot review course: Student not enrolled");
         }
-        review.setStudent(student);
-        com.udemylite.model.Course course = new com.udemylite.model.Course();
-        course.setId(courseId);
-        review.setCourse(course);
-        return reviewRepository.save(review);
+        // Only the foreign keys are written, so neither row needs loading
+        review.setStudent(userRepository.getReferenceById(student.id()));
+        review.setCourse(courseRepository.getReferenceById(courseId));
+        Review saved = reviewRepository.save(review);
+        courseRatingService.applyChange(courseId, null, saved.getRating());
+        eventPublisher.publishEvent(new ReviewChangedEvent(saved.getId(), courseId, student.id(),
+                ReviewChangedEvent.Type.CREATED, saved.getRating()));
+        return saved;
     }
 
-    public Review updateReview(Long reviewId, Review reviewDetails, User student) {
+    @Transactional
+    public Review updateReview(Long reviewId, Review reviewDetails, CurrentUserIdentity student) {
+        checkRating(reviewDetails.getRating());
         Review review = reviewRepository.findById(reviewId).orElseThrow(() -> new RuntimeException("Review not found"));
-        if (!review.getStudent().getId().equals(student.getId())) {
+        if (!review.getStudent().getId().equals(student.id())) {
             throw new RuntimeException("Unauthorized to update this review");
         }
+        Integer oldRating = review.getRating();
         review.setRating(reviewDetails.getRating());
         review.setComment(reviewDetails.getComment());
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        courseRatingService.applyChange(review.getCourse().getId(), oldRating, saved.getRating());
+        eventPublisher.publishEvent(new ReviewChangedEvent(saved.getId(), review.getCourse().getId(), student.id(),
+                ReviewChangedEvent.Type.UPDATED, saved.getRating()));
+        return saved;
     }
 
-    public void deleteReview(Long reviewId, User student) {
+    @Transactional
+    public void deleteReview(Long reviewId, CurrentUserIdentity student) {
         Review review = reviewRepository.findById(reviewId).orElseThrow(() -> new RuntimeException("Review not found"));
-        if (!review.getStudent().getId().equals(student.getId())) {
+        if (!review.getStudent().getId().equals(student.id())) {
             throw new RuntimeException("Unauthorized to delete this review");
         }
         reviewRepository.delete(review);
+        courseRatingService.applyChange(review.getCourse().getId(), review.getRating(), null);
+        eventPublisher.publishEvent(new ReviewChangedEvent(reviewId, review.getCourse().getId(), student.id(),
+                ReviewChangedEvent.Type.DELETED, review.getRating()));
+    }
+
+    public ListFingerprint getReviewsFingerprint(Long courseId) {
+        return reviewRepository.fingerprintByCourseId(courseId);
     }
 
     public List<Review> getReviewsByCourse(Long courseId) {
@@ -53,4 +91,11 @@ public class ReviewService {
     public List<Review> getReviewsByStudent(Long studentId) {
         return reviewRepository.findByStudentId(studentId);
     }
+
+    // The aggregates keep a 1-5 star histogram, so anything else would corrupt them
+    private void checkRating(Integer rating) {
+        if (rating == null || rating < 1 || rating > 5) {
+            throw new RuntimeException("Rating must be between 1 and 5");
+        }
+    }
 }
@@ -2,14 +2,20 @@ package com.udemylite.service;
 
 import com.udemylite.model.User;
 import com.udemylite.repository.UserRepository;
+import com.udemylite.security.AccountStatusCache;
+import com.udemylite.security.PasswordHasher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class UserService implements UserDetailsService {
@@ -18,7 +24,16 @@ public class UserService implements UserDetailsService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AccountStatusCache accountStatusCache;
+
+    // Spring Boot's task pool, bounded by spring.task.execution.pool.*; runs the database writes
+    // that follow a hash so neither the hasher pool nor the common pool blocks on JDBC
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -29,14 +44,20 @@ public class UserService implements UserDetailsService {
                 .username(user.getEmail())
                 .password(user.getPassword())
                 .roles(user.getRole().name())
+                .disabled(!user.isEnabled())
                 .build();
     }
 
     /**
      * Registers a new user.
      * This method now checks if an email is already in use before saving.
+     * The password is hashed on the PasswordHasher pool; a full pool throws
+     * RejectedExecutionException right away. The save runs on the task pool so hasher threads
+     * never wait on the database; when that pool is full too the future completes with a
+     * RejectedExecutionException. A registration that loses a race for the same email completes
+     * with a DataIntegrityViolationException from the unique constraint.
      */
-    public User registerUser(User user) {
+    public CompletableFuture<User> registerUser(User user) {
         // --- THIS IS THE FIX ---
         // 1. Check if a user with this email already exists
         if (userRepository.findByEmail(user.getEmail()).isPresent()) {
@@ -46,8 +67,36 @@ public class UserService implements UserDetailsService {
         // --- END OF FIX ---
 
         // 2. If email is unique, encode the password and save the new user
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        return passwordHasher.encode(user.getPassword()).thenApplyAsync(hash -> {
+            user.setPassword(hash);
+            user.setEnabled(true);
+            return userRepository.save(user);
+        }, taskExecutor);
+    }
+
+    /**
+     * Checks the password on the PasswordHasher pool. Completes with the user, or with null for
+     * an unknown email, a wrong password or a disabled account. An outdated hash is replaced in
+     * the background once the password is known to be right.
+     */
+    public CompletableFuture<User> authenticate(String email, String password) {
+        User user = email == null ? null : userRepository.findByEmail(email).orElse(null);
+        String stored = user != null ? user.getPassword() : null;
+        return passwordHasher.matches(password, stored).thenApply(ok -> {
+            if (!ok || !user.isEnabled()) {
+                return null;
+            }
+            if (passwordHasher.needsRehash(stored)) {
+                // The update runs on the task pool, off the hasher pool which is sized for hashing
+                // only; if either pool is full the rehash is skipped until the next login
+                passwordHasher.rehash(password).thenAcceptAsync(hash -> {
+                    if (hash != null) {
+                        userRepository.replacePasswordHash(user.getId(), stored, hash);
+                    }
+                }, taskExecutor);
+            }
+            return user;
+        });
     }
 
     public Optional<User> findByEmail(String email) {
@@ -58,6 +107,23 @@ public class UserService implements UserDetailsService {
         return userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    public User setEnabled(Long id, boolean enabled) {
+        User user = getUserById(id);
+        user.setEnabled(enabled);
+        User saved = userRepository.save(user);
+        accountStatusCache.invalidate(id);
+        return saved;
+    }
+
+    // Every token issued so far stops working; the user has to log in again
+    public void revokeTokens(Long id) {
+        User user = getUserById(id);
+        // Whole seconds, like the iat of the tokens it is compared with
+        user.setTokensRevokedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        userRepository.save(user);
+        accountStatusCache.invalidate(id);
+    }
+
     public User save(User user) {
         return userRepository.save(user);
     }
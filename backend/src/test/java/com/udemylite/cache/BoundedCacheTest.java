@@ -0,0 +1,74 @@
+package com.udemylite.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    private final BoundedCache<String, String> cache = new BoundedCache<>("test", 100, Duration.ofMinutes(1));
+
+    @Test
+    void loadRacingAnInvalidationOfItsKeyIsNotStored() throws Exception {
+        assertThat(loadWhile("a", "old", () -> cache.invalidate("a"))).isEqualTo("old");
+        assertThat(cache.peek("a")).isNull();
+    }
+
+    @Test
+    void invalidatingAnotherKeyDoesNotDiscardALoad() throws Exception {
+        loadWhile("a", "value", () -> cache.invalidate("b"));
+        assertThat(cache.peek("a")).isEqualTo("value");
+    }
+
+    @Test
+    void invalidateIfAppliesToTheValueALoadReturns() throws Exception {
+        loadWhile("a", "stale", () -> cache.invalidateIf((key, value) -> value.equals("stale")));
+        assertThat(cache.peek("a")).isNull();
+
+        loadWhile("b", "fresh", () -> cache.invalidateIf((key, value) -> value.equals("stale")));
+        assertThat(cache.peek("b")).isEqualTo("fresh");
+    }
+
+    @Test
+    void missAfterAnInvalidationStartsAFreshLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> cache.get("a", blockingLoader("old", started, release)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.invalidate("a");
+
+        assertThat(cache.get("a", key -> "new")).isEqualTo("new");
+        release.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("old");
+        assertThat(cache.peek("a")).isEqualTo("new");
+    }
+
+    // Runs action while a load of key is in progress and returns what the load returned
+    private String loadWhile(String key, String value, Runnable action) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> load = CompletableFuture.supplyAsync(() -> cache.get(key, blockingLoader(value, started, release)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        action.run();
+        release.countDown();
+        return load.get(5, TimeUnit.SECONDS);
+    }
+
+    private static Function<String, String> blockingLoader(String value, CountDownLatch started, CountDownLatch release) {
+        return key -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.udemylite.controller;
+
+import com.udemylite.service.UserService;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class AuthControllerTest extends PostgresIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private UserService userService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    // Only a credential failure is the client's fault; anything else must not look like a bad password
+    @Test
+    void loginFailuresMapToTheirOwnStatus() throws Exception {
+        assertThat(loginFailingWith(new BadCredentialsException("wrong password"))).isEqualTo(401);
+        assertThat(loginFailingWith(new UsernameNotFoundException("no such user"))).isEqualTo(401);
+        assertThat(loginFailingWith(new RejectedExecutionException("pool full"))).isEqualTo(503);
+        assertThat(loginFailingWith(new IllegalStateException("database down"))).isEqualTo(500);
+    }
+
+    private int loginFailingWith(RuntimeException failure) throws Exception {
+        when(userService.authenticate(any(), any())).thenReturn(CompletableFuture.supplyAsync(() -> {
+            throw failure;
+        }));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"a@example.com\",\"password\":\"x\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
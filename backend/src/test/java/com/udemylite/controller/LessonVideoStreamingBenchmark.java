@@ -0,0 +1,147 @@
+package com.udemylite.controller;
+
+import com.udemylite.model.Course;
+import com.udemylite.model.Lesson;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.LessonRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.security.JwtUtil;
+import com.udemylite.support.LatencyStats;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many clients seeking around one self-hosted lesson video: each client loops on Range requests
+ * for a random window (like a player scrubbing) over its own connection. Prints requests/s,
+ * MB/s and per-request latency for each client count; run with mvn test -Pbenchmarks.
+ */
+@Tag("benchmark")
+class LessonVideoStreamingBenchmark extends PostgresIntegrationTest {
+
+    private static final long VIDEO_BYTES = 256L * 1024 * 1024;
+    private static final int WINDOW_BYTES = 512 * 1024;
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASURE = Duration.ofSeconds(10);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void concurrentSeekingClients() throws Exception {
+        String prefix = "stream-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        User student = userRepository.save(new User(null, prefix + "student@example.com", "x", "Stu", "Dent", User.Role.STUDENT));
+        Course course = courseRepository.save(new Course(null, "Streaming", "", BigDecimal.ONE, instructor));
+        Lesson lesson = lessonRepository.save(new Lesson(null, "Video", "", null, 1, course));
+        jdbcTemplate.update("INSERT INTO enrollments (student_id, course_id, enrollment_date) VALUES (?, ?, now())",
+                student.getId(), course.getId());
+        String file = prefix + "video.mp4";
+        writeVideo(MEDIA_ROOT.resolve(file));
+        jdbcTemplate.update("UPDATE lessons SET video_file = ? WHERE id = ?", file, lesson.getId());
+
+        URI uri = URI.create("http://localhost:" + port + "/api/courses/" + course.getId() + "/lessons/" + lesson.getId() + "/video");
+        String token = "Bearer " + jwtUtil.generateToken(student.getId(), student.getEmail(), List.of("ROLE_STUDENT"));
+        System.out.printf("%n[video] %d MB file, %d KB per seek%n", VIDEO_BYTES >> 20, WINDOW_BYTES >> 10);
+        for (int clients : new int[] {1, 16, 64, 256}) {
+            run(uri, token, clients, WARMUP);
+            List<long[]> perClient = run(uri, token, clients, MEASURE);
+            long[] all = perClient.stream().flatMapToLong(Arrays::stream).toArray();
+            double seconds = MEASURE.toNanos() / 1e9;
+            System.out.printf("[video] %3d clients: %7.0f req/s %8.1f MB/s  %s%n", clients, all.length / seconds,
+                    all.length * (double) WINDOW_BYTES / seconds / (1 << 20), LatencyStats.of(all));
+        }
+    }
+
+    // One connection per client, each looping until the deadline; returns each client's latencies
+    private List<long[]> run(URI uri, String token, int clients, Duration duration) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(pool.submit(() -> seekUntil(uri, token, deadline)));
+            }
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long[] seekUntil(URI uri, String token, long deadline) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] nanos = new long[1024];
+        int n = 0;
+        while (System.nanoTime() < deadline) {
+            long offset = ThreadLocalRandom.current().nextLong(VIDEO_BYTES - WINDOW_BYTES);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Authorization", token)
+                    .header("Range", "bytes=" + offset + "-" + (offset + WINDOW_BYTES - 1))
+                    .build();
+            long started = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            long elapsed = System.nanoTime() - started;
+            assertThat(response.statusCode()).isEqualTo(206);
+            assertThat(response.body()).hasSize(WINDOW_BYTES);
+            if (n == nanos.length) {
+                nanos = Arrays.copyOf(nanos, n * 2);
+            }
+            nanos[n++] = elapsed;
+        }
+        return Arrays.copyOf(nanos, n);
+    }
+
+    private static void writeVideo(Path path) throws Exception {
+        byte[] block = new byte[1 << 20];
+        new Random(7).nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (long written = 0; written < VIDEO_BYTES; written += block.length) {
+                out.write(block);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.udemylite.controller;
+
+import com.udemylite.model.Course;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.support.LatencyStats;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catalog latency while a crowd of clients hammers POST /api/auth/login. One client pages the
+ * public catalog the whole time; the login clients cycle through real accounts, mostly with the
+ * right password. Prints catalog latency and login outcomes (200/401/503) for each crowd size;
+ * run with mvn test -Pbenchmarks.
+ */
+@Tag("benchmark")
+class LoginStormBenchmark extends PostgresIntegrationTest {
+
+    private static final int COURSES = 200;
+    private static final int ACCOUNTS = 64;
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASURE = Duration.ofSeconds(10);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void catalogLatencyDuringLoginStorm() throws Exception {
+        String prefix = "storm-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        for (int i = 0; i < COURSES; i++) {
+            courseRepository.save(new Course(null, "Course " + i, "", BigDecimal.ONE, instructor));
+        }
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            emails.add(userRepository.save(new User(null, prefix + i + "@example.com", hash, "Stu", "Dent", User.Role.STUDENT)).getEmail());
+        }
+
+        URI catalog = URI.create("http://localhost:" + port + "/api/courses?size=20");
+        URI login = URI.create("http://localhost:" + port + "/api/auth/login");
+        System.out.printf("%n[login-storm] %d courses, %d accounts, %d CPUs%n", COURSES, ACCOUNTS,
+                Runtime.getRuntime().availableProcessors());
+        for (int clients : new int[] {0, 8, 32, 128}) {
+            run(catalog, login, emails, clients, WARMUP);
+            Result result = run(catalog, login, emails, clients, MEASURE);
+            double seconds = MEASURE.toNanos() / 1e9;
+            System.out.printf("[login-storm] %3d login clients: catalog %s | logins %.0f/s %s%n", clients,
+                    LatencyStats.of(result.catalogNanos), result.logins() / seconds, result.loginStatuses());
+        }
+    }
+
+    private Result run(URI catalog, URI login, List<String> emails, int clients, Duration duration) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients + 1);
+        try {
+            long deadline = System.nanoTime() + duration.toNanos();
+            Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+            List<Future<?>> logins = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                logins.add(pool.submit(() -> loginUntil(login, emails, deadline, statuses)));
+            }
+            long[] catalogNanos = pool.submit(() -> browseUntil(catalog, deadline)).get();
+            for (Future<?> future : logins) {
+                future.get();
+            }
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return new Result(catalogNanos, counts);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long[] browseUntil(URI catalog, long deadline) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(catalog).build();
+        long[] nanos = new long[1024];
+        int n = 0;
+        while (System.nanoTime() < deadline) {
+            long started = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            long elapsed = System.nanoTime() - started;
+            assertThat(response.statusCode()).isEqualTo(200);
+            if (n == nanos.length) {
+                nanos = Arrays.copyOf(nanos, n * 2);
+            }
+            nanos[n++] = elapsed;
+        }
+        return Arrays.copyOf(nanos, n);
+    }
+
+    // One in ten attempts uses a wrong password, which costs the server just as much
+    private Void loginUntil(URI login, List<String> emails, long deadline, Map<Integer, LongAdder> statuses) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        while (System.nanoTime() < deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String email = emails.get(random.nextInt(emails.size()));
+            String password = random.nextInt(10) == 0 ? "wrong" : PASSWORD;
+            HttpRequest request = HttpRequest.newBuilder(login)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            statuses.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+        }
+        return null;
+    }
+
+    private record Result(long[] catalogNanos, Map<Integer, Long> loginStatuses) {
+        long logins() {
+            return loginStatuses.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
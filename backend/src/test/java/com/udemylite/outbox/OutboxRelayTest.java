@@ -0,0 +1,112 @@
+package com.udemylite.outbox;
+
+import com.udemylite.event.CourseChangedEvent;
+import com.udemylite.event.OutboxMessage;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxRelayTest extends PostgresIntegrationTest {
+
+    private static final long SLOW_COURSE = 9_000_001L;
+    private static final long FAST_COURSE = 9_000_002L;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private RecordingSink sink;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // The slow transaction has written its outbox row but stalls before committing, for longer
+    // than the relay used to wait on a gap; a later transaction must not overtake it
+    @Test
+    void eventOfATransactionCommittingLateIsDeliveredBeforeLaterOnes() throws Exception {
+        CountDownLatch slowInserted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new CourseChangedEvent(SLOW_COURSE, CourseChangedEvent.Type.CONTENT_CHANGED, null));
+            // Registered after OutboxWriter's, so it runs once the outbox row is inserted
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    slowInserted.countDown();
+                    await(releaseSlow);
+                }
+            });
+        }));
+        assertThat(slowInserted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> fast = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new CourseChangedEvent(FAST_COURSE, CourseChangedEvent.Type.CONTENT_CHANGED, null))));
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(7);
+        while (System.nanoTime() < until) {
+            relay.relay();
+            Thread.sleep(200);
+        }
+        assertThat(sink.courseIds()).isEmpty();
+
+        releaseSlow.countDown();
+        CompletableFuture.allOf(slow, fast).get(10, TimeUnit.SECONDS);
+        relay.relay();
+        assertThat(sink.courseIds()).containsExactly(SLOW_COURSE, FAST_COURSE);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    static class RecordingSink implements OutboxSink {
+        private final List<Long> courseIds = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public void publish(List<OutboxMessage> batch) {
+            for (OutboxMessage message : batch) {
+                if ("COURSE".equals(message.aggregateType())
+                        && (message.aggregateId() == SLOW_COURSE || message.aggregateId() == FAST_COURSE)) {
+                    courseIds.add(message.aggregateId());
+                }
+            }
+        }
+
+        List<Long> courseIds() {
+            return courseIds;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.udemylite.search;
+
+import com.udemylite.support.LatencyStats;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Query latency of the in-memory index at catalog sizes of 100k and 250k courses, built from a
+ * synthetic Zipf-distributed vocabulary so that common terms have long posting lists. Prints one
+ * line per query shape; run with mvn test -Pbenchmarks.
+ */
+@Tag("benchmark")
+class CourseSearchIndexBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+    private static final int WARMUP_QUERIES = 3_000;
+    private static final int MEASURED_QUERIES = 5_000;
+    private static final int PAGE_SIZE = 20;
+
+    private final Random random = new Random(42);
+    private final String[] words = vocabulary();
+    private final double[] zipf = zipfCumulative(VOCABULARY, 1.0);
+
+    @Test
+    void queryLatency() {
+        for (int courses : new int[] {100_000, 250_000}) {
+            CourseSearchIndex index = new CourseSearchIndex();
+            long started = System.nanoTime();
+            for (long id = 1; id <= courses; id++) {
+                index.index(new IndexedCourse(id, sentence(4, 8), sentence(30, 60), words[random.nextInt(30)]));
+            }
+            System.out.printf("%n[search] %d courses indexed in %d ms, %s%n", courses,
+                    (System.nanoTime() - started) / 1_000_000, index.stats());
+
+            measure(index, "common term", () -> words[random.nextInt(10)]);
+            measure(index, "mid-frequency term", () -> words[500 + random.nextInt(500)]);
+            measure(index, "rare term", () -> words[10_000 + random.nextInt(10_000)]);
+            measure(index, "two terms", () -> word() + " " + word());
+            measure(index, "three terms", () -> word() + " " + word() + " " + word());
+        }
+    }
+
+    private void measure(CourseSearchIndex index, String shape, Supplier<String> queries) {
+        List<String> warmup = new ArrayList<>();
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            warmup.add(queries.get());
+        }
+        long blackhole = 0;
+        for (String q : warmup) {
+            blackhole += index.search(q, 0, PAGE_SIZE).total();
+        }
+        long[] nanos = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            String q = queries.get();
+            long t0 = System.nanoTime();
+            blackhole += index.search(q, 0, PAGE_SIZE).total();
+            nanos[i] = System.nanoTime() - t0;
+        }
+        System.out.printf("[search]   %-20s %s (avg hits %d)%n", shape, LatencyStats.of(nanos),
+                blackhole / (WARMUP_QUERIES + MEASURED_QUERIES));
+    }
+
+    private String sentence(int minWords, int maxWords) {
+        int n = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "" : " ").append(word());
+        }
+        return sb.toString();
+    }
+
+    private String word() {
+        double u = random.nextDouble();
+        int lo = 0;
+        int hi = zipf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (zipf[mid] < u) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return words[lo];
+    }
+
+    // Letters only, so every word survives TextAnalyzer as one token
+    private static String[] vocabulary() {
+        String[] syllables = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "ze", "ba", "do", "fu", "gi", "ha", "je",
+                "pa", "qu", "ri", "so", "tu", "wa", "xe", "yo", "ce"};
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder sb = new StringBuilder();
+            int n = i;
+            do {
+                sb.append(syllables[n % syllables.length]);
+                n /= syllables.length;
+            } while (n > 0);
+            sb.append("x");
+            words[i] = sb.toString();
+        }
+        return words;
+    }
+
+    private static double[] zipfCumulative(int n, double s) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1 / Math.pow(i + 1, s);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+}
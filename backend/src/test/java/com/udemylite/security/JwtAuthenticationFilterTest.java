@@ -0,0 +1,75 @@
+package com.udemylite.security;
+
+import com.udemylite.model.User;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.service.UserService;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtAuthenticationFilterTest extends PostgresIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    // "Log out everywhere" followed at once by a fresh login must leave the user signed in
+    @Test
+    void loginInTheSameSecondAsRevocationIsAccepted() throws Exception {
+        User user = student();
+        awaitStartOfSecond();
+        userService.revokeTokens(user.getId());
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), List.of("ROLE_STUDENT"));
+
+        assertThat(profileStatus(token)).isEqualTo(200);
+    }
+
+    @Test
+    void tokenFromAnEarlierSecondIsRevoked() throws Exception {
+        User user = student();
+        awaitStartOfSecond();
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), List.of("ROLE_STUDENT"));
+        assertThat(profileStatus(token)).isEqualTo(200);
+        awaitStartOfSecond();
+        userService.revokeTokens(user.getId());
+
+        assertThat(profileStatus(token)).isNotEqualTo(200);
+    }
+
+    private User student() {
+        String email = "revoke-" + UUID.randomUUID() + "@example.com";
+        return userRepository.save(new User(null, email, "x", "Stu", "Dent", User.Role.STUDENT));
+    }
+
+    private int profileStatus(String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users/profile"))
+                .header("Authorization", "Bearer " + token)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // Leaves most of a second for the steps that must fall within it
+    private static void awaitStartOfSecond() throws InterruptedException {
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 20);
+    }
+}
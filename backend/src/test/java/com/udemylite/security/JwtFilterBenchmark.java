@@ -0,0 +1,186 @@
+package com.udemylite.security;
+
+import com.udemylite.dto.AccountStatus;
+import com.udemylite.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JMH benchmark of JwtAuthenticationFilter per request for three ways of verifying the bearer
+ * token: the original three parses with a parser built per call, one parse with the shared parser,
+ * and JwtUtil as shipped (one parse behind the SHA-256-keyed verified-token cache). Requests draw
+ * from a pool of live sessions, so after warmup the cache answers every request.
+ *
+ * Run with mvn test -Pbenchmarks; the JUnit test launches JMH in forked JVMs at 1 and 8 threads
+ * and prints its sample-time percentiles. The 8-thread figures only mean something on a machine
+ * with at least 8 cores.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+    private static final int SESSIONS = 1_000;
+
+    @Param({"three-parses", "shared-parser", "cached"})
+    public String variant;
+
+    private List<String> headers;
+    private JwtAuthenticationFilter filter;
+
+    @Test
+    void filterCostPerRequest() throws RunnerException {
+        System.out.printf("%n[jwt-filter] %d sessions, %d CPUs%n", SESSIONS, Runtime.getRuntime().availableProcessors());
+        for (int threads : new int[] {1, 8}) {
+            Options options = new OptionsBuilder()
+                    .include(JwtFilterBenchmark.class.getName() + ".authenticate$")
+                    .threads(threads)
+                    .build();
+            assertThat(new Runner(options).run()).isNotEmpty();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        headers = new ArrayList<>();
+        JwtUtil issuer = jwtUtil(cachingJwtUtil());
+        for (long id = 1; id <= SESSIONS; id++) {
+            headers.add("Bearer " + issuer.generateToken(id, "user" + id + "@example.com", List.of("ROLE_STUDENT")));
+        }
+        JwtUtil verifier = switch (variant) {
+            case "three-parses" -> new TripleParseJwtUtil();
+            case "shared-parser" -> new SharedParseJwtUtil();
+            case "cached" -> cachingJwtUtil();
+            default -> throw new IllegalArgumentException(variant);
+        };
+        filter = filter(jwtUtil(verifier));
+    }
+
+    // The authentication the filter set is returned, so JMH keeps the work that produced it
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/profile");
+        request.addHeader("Authorization", headers.get(ThreadLocalRandom.current().nextInt(headers.size())));
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        if (authentication == null) {
+            throw new IllegalStateException("Filter did not authenticate the request");
+        }
+        return authentication;
+    }
+
+    // JwtUtil as configured by application.properties
+    private static JwtUtil cachingJwtUtil() {
+        return new JwtUtil(100_000, Duration.ofMinutes(10));
+    }
+
+    private static JwtUtil jwtUtil(JwtUtil jwtUtil) {
+        ReflectionTestUtils.setField(jwtUtil, "secretString", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationInMs", Duration.ofHours(1).toMillis());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    // Every account is enabled and never revoked; the status lookup is the same for all variants
+    private static JwtAuthenticationFilter filter(JwtUtil jwtUtil) {
+        UserRepository users = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] {UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAccountStatus")) {
+                        return Optional.of(new AccountStatus((Long) args[0], true, null));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        AccountStatusCache accountStatusCache = new AccountStatusCache(50_000, Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(accountStatusCache, "userRepository", users);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "accountStatusCache", accountStatusCache);
+        return filter;
+    }
+
+    private static VerifiedToken toVerified(Claims claims) {
+        return new VerifiedToken(claims.getSubject(), claims.get("uid", Long.class),
+                List.of(String.valueOf(claims.get("authorities", List.class).get(0))),
+                claims.getIssuedAt().toInstant(), claims.getExpiration().toInstant());
+    }
+
+    // What the filter paid before: extractUsername, then validateToken's extractUsername and expiry check
+    private static final class TripleParseJwtUtil extends JwtUtil {
+        private final SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+
+        TripleParseJwtUtil() {
+            super(1, Duration.ZERO);
+        }
+
+        @Override
+        public VerifiedToken verify(String token) {
+            parse(token).getSubject();
+            parse(token).getSubject();
+            Claims claims = parse(token);
+            if (!claims.getExpiration().after(new java.util.Date())) {
+                throw new IllegalStateException("Token expired");
+            }
+            return toVerified(claims);
+        }
+
+        private Claims parse(String token) {
+            return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        }
+    }
+
+    // The same single parse with the shared parser, minus the cache in front of it
+    private static final class SharedParseJwtUtil extends JwtUtil {
+        private final JwtParser parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build();
+
+        SharedParseJwtUtil() {
+            super(1, Duration.ZERO);
+        }
+
+        @Override
+        public VerifiedToken verify(String token) {
+            return toVerified(parser.parseClaimsJws(token).getBody());
+        }
+    }
+}
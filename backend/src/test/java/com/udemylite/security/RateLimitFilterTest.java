@@ -0,0 +1,106 @@
+package com.udemylite.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "authPerIp", "100/1m");
+        ReflectionTestUtils.setField(filter, "authPerAccount", "2/1m");
+        ReflectionTestUtils.setField(filter, "reviewsPerIp", "100/1m");
+        ReflectionTestUtils.setField(filter, "reviewsPerAccount", "100/1m");
+        ReflectionTestUtils.setField(filter, "enrollmentsPerIp", "100/1m");
+        ReflectionTestUtils.setField(filter, "enrollmentsPerAccount", "100/1m");
+        ReflectionTestUtils.setField(filter, "maxKeys", 1000);
+        filter.init();
+    }
+
+    @Test
+    void oversizedBodyIsRefusedWhateverContentLengthSays() throws Exception {
+        byte[] body = ("{\"email\":\"a@example.com\",\"password\":\"" + "x".repeat(20_000) + "\"}").getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = login("application/json", body);
+        request.addHeader("Content-Length", "10"); // lies; the body is still read only up to the limit
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void anyJsonTypeIsLimitedPerAccount() throws Exception {
+        byte[] body = "{\"email\":\"Same@Example.com\",\"password\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+        String[] types = {"application/json;charset=UTF-8", "application/vnd.api+json", "application/merge-patch+json"};
+        int[] statuses = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(login(types[i], body), response, new MockFilterChain());
+            statuses[i] = response.getStatus();
+        }
+        assertThat(statuses).containsExactly(200, 200, 429);
+    }
+
+    @Test
+    void controllerCanReadTheBodyAsynchronously() throws Exception {
+        byte[] body = "{\"email\":\"async@example.com\",\"password\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(login("application/json", body), new MockHttpServletResponse(), chain);
+
+        ServletInputStream in = ((HttpServletRequest) chain.getRequest()).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] done = new boolean[1];
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[8];
+                while (in.isReady() && !in.isFinished()) {
+                    int n = in.read(buffer);
+                    read.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                done[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertThat(done[0]).isTrue();
+        assertThat(read.toByteArray()).isEqualTo(body);
+    }
+
+    private static MockHttpServletRequest login(String contentType, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setContentType(contentType);
+        request.setContent(body);
+        return request;
+    }
+}
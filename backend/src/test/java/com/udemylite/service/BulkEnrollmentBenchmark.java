@@ -0,0 +1,78 @@
+package com.udemylite.service;
+
+import com.udemylite.dto.BulkEnrollmentReport;
+import com.udemylite.dto.EnrollmentKey;
+import com.udemylite.model.Course;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.security.CurrentUserIdentity;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Wall time of a 100k-row bulk enrollment (10,000 students x 10 courses) against PostgreSQL,
+ * measured through the service so it includes validation, the batched insert, the commit and the
+ * after-commit listeners. The same request is then replayed, when every row is ALREADY_ENROLLED.
+ * Run with mvn test -Pbenchmarks.
+ */
+@Tag("benchmark")
+class BulkEnrollmentBenchmark extends PostgresIntegrationTest {
+
+    private static final int STUDENTS = 10_000;
+    private static final int COURSES = 10;
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void enrollHundredThousandRows() {
+        User instructor = userRepository.save(new User(null, "bulk-bench-instructor@example.com", "x", "Bench",
+                "Instructor", User.Role.INSTRUCTOR));
+        List<Long> courseIds = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            courseIds.add(courseRepository.save(new Course(null, "Bulk bench " + i, "", BigDecimal.TEN, instructor)).getId());
+        }
+        List<Object[]> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(new Object[] {"bulk-bench-" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, password, first_name, last_name, role, enabled) "
+                + "VALUES (?, 'x', 'Bench', 'Student', 'STUDENT', true)", students);
+        List<Long> studentIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE email LIKE 'bulk-bench-%' AND role = 'STUDENT' ORDER BY id", Long.class);
+
+        CurrentUserIdentity caller = new CurrentUserIdentity(instructor.getId(), instructor.getEmail(), User.Role.INSTRUCTOR);
+        List<EnrollmentKey> pairs = bulkEnrollmentService.crossProduct(studentIds, courseIds);
+
+        long started = System.nanoTime();
+        BulkEnrollmentReport first = bulkEnrollmentService.enroll(pairs, caller);
+        long firstMillis = (System.nanoTime() - started) / 1_000_000;
+        started = System.nanoTime();
+        BulkEnrollmentReport again = bulkEnrollmentService.enroll(pairs, caller);
+        long againMillis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.printf("%n[bulk] %d rows enrolled in %d ms (%s)%n", pairs.size(), firstMillis, first.counts());
+        System.out.printf("[bulk] %d rows replayed in %d ms (%s)%n", pairs.size(), againMillis, again.counts());
+        assertThat(first.counts().get(BulkEnrollmentReport.Status.ENROLLED)).isEqualTo((long) STUDENTS * COURSES);
+        assertThat(again.counts().get(BulkEnrollmentReport.Status.ALREADY_ENROLLED)).isEqualTo((long) STUDENTS * COURSES);
+    }
+}
@@ -0,0 +1,143 @@
+package com.udemylite.service;
+
+import com.udemylite.dto.BulkEnrollmentReport;
+import com.udemylite.dto.BulkEnrollmentReport.Status;
+import com.udemylite.dto.EnrollmentKey;
+import com.udemylite.model.Course;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.security.CurrentUserIdentity;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk enrollments racing other enrollments of the same pairs, against PostgreSQL's unique index.
+ */
+class BulkEnrollmentServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CurrentUserIdentity instructor;
+    private List<Long> courseIds;
+    private List<Long> studentIds;
+
+    @BeforeEach
+    void seed() {
+        String prefix = "bulk-" + UUID.randomUUID() + "-";
+        User owner = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        instructor = CurrentUserIdentity.of(owner);
+        courseIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            courseIds.add(courseRepository.save(new Course(null, "Bulk " + i, "", BigDecimal.ONE, owner)).getId());
+        }
+        studentIds = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            studentIds.add(userRepository.save(new User(null, prefix + i + "@example.com", "x", "Stu", "Dent", User.Role.STUDENT)).getId());
+        }
+    }
+
+    @Test
+    void rowEnrolledByATransactionCommittingAfterTheLookupIsReportedAlreadyEnrolled() throws Exception {
+        Long studentId = studentIds.get(0);
+        Long courseId = courseIds.get(0);
+        TransactionStatus other = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        jdbcTemplate.update("INSERT INTO enrollments (student_id, course_id, enrollment_date) VALUES (?, ?, now())",
+                studentId, courseId);
+
+        // The bulk lookup can't see the uncommitted row, so its insert waits on the unique index
+        CompletableFuture<BulkEnrollmentReport> bulk = CompletableFuture.supplyAsync(
+                () -> bulkEnrollmentService.enroll(bulkEnrollmentService.crossProduct(studentIds, courseIds), instructor));
+        awaitBlockedOnLock();
+        transactionManager.commit(other);
+
+        BulkEnrollmentReport report = bulk.get(30, TimeUnit.SECONDS);
+        assertThat(report.counts()).containsEntry(Status.ALREADY_ENROLLED, 1L)
+                .containsEntry(Status.ENROLLED, (long) studentIds.size() * courseIds.size() - 1);
+        assertThat(report.rows()).filteredOn(row -> row.studentId().equals(studentId) && row.courseId().equals(courseId))
+                .extracting(BulkEnrollmentReport.Row::status).containsExactly(Status.ALREADY_ENROLLED);
+        assertThat(enrollmentCount()).isEqualTo((long) studentIds.size() * courseIds.size());
+    }
+
+    @Test
+    void overlappingBulkEnrollmentsEnrollEachPairOnce() throws Exception {
+        List<EnrollmentKey> first = bulkEnrollmentService.crossProduct(studentIds.subList(0, 300), courseIds);
+        List<EnrollmentKey> second = bulkEnrollmentService.crossProduct(studentIds.subList(100, 400), courseIds);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<BulkEnrollmentReport>> runs = new ArrayList<>();
+        for (List<EnrollmentKey> pairs : List.of(first, second)) {
+            runs.add(CompletableFuture.supplyAsync(() -> {
+                awaitQuietly(start);
+                return bulkEnrollmentService.enroll(pairs, instructor);
+            }));
+        }
+        start.countDown();
+
+        Map<EnrollmentKey, Integer> enrolledTimes = new HashMap<>();
+        for (CompletableFuture<BulkEnrollmentReport> run : runs) {
+            for (BulkEnrollmentReport.Row row : run.get(30, TimeUnit.SECONDS).rows()) {
+                assertThat(row.status()).isIn(Status.ENROLLED, Status.ALREADY_ENROLLED);
+                if (row.status() == Status.ENROLLED) {
+                    enrolledTimes.merge(new EnrollmentKey(row.studentId(), row.courseId()), 1, Integer::sum);
+                }
+            }
+        }
+        long expected = (long) studentIds.size() * courseIds.size();
+        assertThat(enrolledTimes).hasSize((int) expected);
+        assertThat(enrolledTimes.values()).containsOnly(1);
+        assertThat(enrollmentCount()).isEqualTo(expected);
+    }
+
+    private long enrollmentCount() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM enrollments WHERE course_id = ANY(?::bigint[])",
+                Long.class, (Object) courseIds.toArray(new Long[0]));
+    }
+
+    private void awaitBlockedOnLock() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Long.class) == 0) {
+            assertThat(System.nanoTime()).as("bulk insert never blocked").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.udemylite.service;
+
+import com.udemylite.model.Course;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseRatingServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CourseRatingService ratingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Rows written before ratings were validated can hold anything; editing them must not fail
+    @Test
+    void outOfRangeLegacyRatingsMoveCountAndSumLikeTheRebuild() {
+        String prefix = "ratings-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        User student = userRepository.save(new User(null, prefix + "student@example.com", "x", "Stu", "Dent", User.Role.STUDENT));
+        Course course = courseRepository.save(new Course(null, "Ratings", "", BigDecimal.ONE, instructor));
+        Long legacy = review(student, course, 0);
+        review(student, course, 4);
+        ratingService.rebuildAll();
+
+        // Edit the legacy review to 5, then add a 7 through the incremental path
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.update("UPDATE reviews SET rating = 5 WHERE id = ?", legacy);
+            ratingService.applyChange(course.getId(), 0, 5);
+            review(student, course, 7);
+            ratingService.applyChange(course.getId(), null, 7);
+        });
+        Map<String, Object> incremental = stats(course);
+
+        ratingService.rebuildAll();
+        assertThat(incremental).isEqualTo(stats(course));
+        assertThat(incremental).containsEntry("rating_count", 3L).containsEntry("rating_sum", 16L)
+                .containsEntry("star4", 1L).containsEntry("star5", 1L);
+    }
+
+    private Long review(User student, Course course, int rating) {
+        return jdbcTemplate.queryForObject("INSERT INTO reviews (rating, comment, student_id, course_id, version) "
+                + "VALUES (?, '', ?, ?, 0) RETURNING id", Long.class, rating, student.getId(), course.getId());
+    }
+
+    private Map<String, Object> stats(Course course) {
+        return jdbcTemplate.queryForMap("SELECT rating_count, rating_sum, star1, star2, star3, star4, star5 "
+                + "FROM course_rating_stats WHERE course_id = ?", course.getId());
+    }
+}
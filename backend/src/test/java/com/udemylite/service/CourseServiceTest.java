@@ -0,0 +1,109 @@
+package com.udemylite.service;
+
+import com.udemylite.dto.CourseSummary;
+import com.udemylite.dto.CursorPage;
+import com.udemylite.model.Course;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.security.CurrentUserIdentity;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseServiceTest extends PostgresIntegrationTest {
+
+    // Only this test's courses have this price, so a price filter isolates them
+    private static final BigDecimal PRICE = new BigDecimal("4242.42");
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void categoryPagesWalkNamedCategoriesThenUncategorizedCourses() {
+        String prefix = "catalog-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        List<Course> courses = new ArrayList<>();
+        for (String category : Arrays.asList("b", null, "a", "", null, "a", "c", null, "b", "")) {
+            Course course = new Course(null, "Course", "", PRICE, instructor);
+            course.setCategory(category);
+            courses.add(courseRepository.save(course));
+        }
+        List<Long> expected = courses.stream()
+                .sorted(Comparator.comparing(Course::getCategory, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(Course::getId))
+                .map(Course::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<CourseSummary> page = courseService.getCatalogPage("category", cursor, 3, null, PRICE, PRICE);
+            page.items().forEach(summary -> seen.add(summary.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void pricePagesWalkDuplicatePricesInIdOrder() {
+        String prefix = "catalog-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        List<Course> courses = new ArrayList<>();
+        for (String price : List.of("20.00", "10.00", "20.00", "10.00", "30.00", "20.00", "10.00", "20.00")) {
+            Course course = new Course(null, "Course", "", new BigDecimal(price), instructor);
+            // A category only this test uses isolates its courses
+            course.setCategory(prefix);
+            courses.add(courseRepository.save(course));
+        }
+        List<Long> expected = courses.stream()
+                .sorted(Comparator.comparing(Course::getPrice).thenComparing(Course::getId))
+                .map(Course::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<CourseSummary> page = courseService.getCatalogPage("price", cursor, 3, prefix, null, null);
+            page.items().forEach(summary -> seen.add(summary.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void blankCategoryIsStoredAsUncategorized() {
+        String prefix = "catalog-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        Course course = new Course(null, "Course", "", PRICE, instructor);
+        course.setCategory("  ");
+        Course created = courseService.createCourse(course, instructor);
+        assertThat(courseRepository.findById(created.getId()).orElseThrow().getCategory()).isNull();
+
+        Course named = new Course(null, "Course", "", PRICE, instructor);
+        named.setCategory("a");
+        courseService.updateCourse(created.getId(), named, CurrentUserIdentity.of(instructor));
+        Course cleared = new Course(null, "Course", "", PRICE, instructor);
+        cleared.setCategory("");
+        courseService.updateCourse(created.getId(), cleared, CurrentUserIdentity.of(instructor));
+
+        assertThat(courseRepository.findById(created.getId()).orElseThrow().getCategory()).isNull();
+    }
+}
@@ -0,0 +1,127 @@
+package com.udemylite.service;
+
+import com.udemylite.model.Course;
+import com.udemylite.model.Enrollment;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.EnrollmentConstraint;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnrollmentServiceTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentMembershipIndex membershipIndex;
+
+    @Autowired
+    private EnrollmentConstraint enrollmentConstraint;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Each round a fresh student clicks "enroll" from every thread at once
+    @Test
+    void concurrentEnrollsOfOnePairCreateOneRowAndAllGetIt() throws Exception {
+        String prefix = "enroll-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        Course course = courseRepository.save(new Course(null, "Enroll", "", BigDecimal.ONE, instructor));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                User student = userRepository.save(new User(null, prefix + round + "@example.com", "x", "Stu", "Dent", User.Role.STUDENT));
+                CyclicBarrier barrier = new CyclicBarrier(THREADS);
+                List<Future<Enrollment>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    futures.add(pool.submit(() -> {
+                        barrier.await(10, TimeUnit.SECONDS);
+                        return enrollmentService.enrollStudent(course.getId(), student);
+                    }));
+                }
+                // get() rethrows anything a caller saw
+                Set<Long> ids = new HashSet<>();
+                for (Future<Enrollment> future : futures) {
+                    ids.add(future.get(30, TimeUnit.SECONDS).getId());
+                }
+
+                Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enrollments WHERE student_id = ? AND course_id = ?",
+                        Integer.class, student.getId(), course.getId());
+                assertThat(rows).as("rows in round %d", round).isEqualTo(1);
+                assertThat(ids).as("ids returned in round %d", round).hasSize(1);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // A row inserted behind the index's back, as another node would, must not be refused
+    @Test
+    void enrollmentMissingFromALoadedBitmapIsFoundInTheDatabase() {
+        String prefix = "enroll-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        User student = userRepository.save(new User(null, prefix + "student@example.com", "x", "Stu", "Dent", User.Role.STUDENT));
+        Course course = courseRepository.save(new Course(null, "Enroll", "", BigDecimal.ONE, instructor));
+        assertThat(membershipIndex.isEnrolled(student.getId(), course.getId())).isFalse();
+
+        jdbcTemplate.update("INSERT INTO enrollments (student_id, course_id, enrollment_date) VALUES (?, ?, now())",
+                student.getId(), course.getId());
+
+        assertThat(membershipIndex.isEnrolled(student.getId(), course.getId())).isTrue();
+    }
+
+    // A table that picked up duplicates before the constraint existed is repaired at startup
+    @Test
+    void startupRemovesDuplicateEnrollmentsAndRestoresTheConstraint() {
+        String prefix = "enroll-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        User student = userRepository.save(new User(null, prefix + "student@example.com", "x", "Stu", "Dent", User.Role.STUDENT));
+        Course course = courseRepository.save(new Course(null, "Enroll", "", BigDecimal.ONE, instructor));
+
+        jdbcTemplate.execute("ALTER TABLE enrollments DROP CONSTRAINT uk_enrollments_student_course");
+        try {
+            for (int i = 0; i < 3; i++) {
+                jdbcTemplate.update("INSERT INTO enrollments (student_id, course_id, enrollment_date) VALUES (?, ?, now())",
+                        student.getId(), course.getId());
+            }
+        } finally {
+            enrollmentConstraint.ensure();
+        }
+
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enrollments WHERE student_id = ? AND course_id = ?",
+                Integer.class, student.getId(), course.getId());
+        assertThat(rows).isEqualTo(1);
+        Enrollment again = enrollmentService.enrollStudent(course.getId(), student);
+        assertThat(again.getId()).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enrollments WHERE student_id = ? AND course_id = ?",
+                Integer.class, student.getId(), course.getId())).isEqualTo(1);
+    }
+}
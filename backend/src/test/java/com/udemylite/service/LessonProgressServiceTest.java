@@ -0,0 +1,81 @@
+package com.udemylite.service;
+
+import com.udemylite.model.Course;
+import com.udemylite.model.Lesson;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.EnrollmentRepository;
+import com.udemylite.repository.LessonRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LessonProgressServiceTest extends PostgresIntegrationTest {
+
+    private static final int ROUNDS = 30;
+
+    @Autowired
+    private LessonProgressService progressService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Each round a student finishes the last two lessons at once; one of the two must see both
+    @Test
+    void completingTheLastLessonsConcurrentlyCompletesTheEnrollment() throws Exception {
+        String prefix = "progress-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        Course course = courseRepository.save(new Course(null, "Progress", "", BigDecimal.ONE, instructor));
+        Long first = lessonRepository.save(new Lesson(null, "One", "", null, 1, course)).getId();
+        Long second = lessonRepository.save(new Lesson(null, "Two", "", null, 2, course)).getId();
+        List<Long> students = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            Long studentId = userRepository.save(new User(null, prefix + i + "@example.com", "x", "Stu", "Dent", User.Role.STUDENT)).getId();
+            jdbcTemplate.update("INSERT INTO enrollments (student_id, course_id, enrollment_date) VALUES (?, ?, now())",
+                    studentId, course.getId());
+            students.add(studentId);
+        }
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        for (Long studentId : students) {
+            CompletableFuture<?> a = CompletableFuture.runAsync(() -> complete(barrier, studentId, first));
+            CompletableFuture<?> b = CompletableFuture.runAsync(() -> complete(barrier, studentId, second));
+            CompletableFuture.allOf(a, b).get(30, TimeUnit.SECONDS);
+            assertThat(enrollmentRepository.findCompletionDate(studentId, course.getId()))
+                    .as("completion date of student %d", studentId).isPresent();
+        }
+    }
+
+    private void complete(CyclicBarrier barrier, Long studentId, Long lessonId) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        progressService.completeLesson(studentId, lessonId);
+    }
+}
@@ -0,0 +1,188 @@
+package com.udemylite.service;
+
+import com.udemylite.dto.UploadInitRequest;
+import com.udemylite.dto.UploadStatus;
+import com.udemylite.media.BlobStore;
+import com.udemylite.model.Course;
+import com.udemylite.model.Lesson;
+import com.udemylite.model.User;
+import com.udemylite.repository.CourseRepository;
+import com.udemylite.repository.LessonRepository;
+import com.udemylite.repository.UserRepository;
+import com.udemylite.security.CurrentUserIdentity;
+import com.udemylite.security.JwtUtil;
+import com.udemylite.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LessonUploadServiceTest extends PostgresIntegrationTest {
+
+    private static final int CHUNK = 256 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private LessonUploadService uploadService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void badResendOfReceivedChunkKeepsTheStoredBytes() throws Exception {
+        String prefix = "upload-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        Course course = courseRepository.save(new Course(null, "Uploads", "", BigDecimal.ONE, instructor));
+        Lesson lesson = lessonRepository.save(new Lesson(null, "Video", "", null, 1, course));
+        CurrentUserIdentity identity = CurrentUserIdentity.of(instructor);
+
+        byte[] video = new byte[2 * CHUNK + 1000];
+        new Random(7).nextBytes(video);
+        UploadStatus status = start(course, lesson, video.length, identity);
+        for (int i = 0; i < status.chunkCount(); i++) {
+            send(lesson, status.id(), video, i, identity);
+        }
+
+        // A correctly hashed re-send is accepted but doesn't count twice
+        UploadStatus.ChunkReceipt resent = send(lesson, status.id(), video, 0, identity);
+        assertThat(resent.receivedChunks()).isEqualTo(status.chunkCount());
+        // Same length, wrong bytes: rejected before anything reaches the file
+        byte[] garbage = new byte[CHUNK];
+        assertThatThrownBy(() -> uploadService.writeChunk(lesson.getId(), status.id(), 0, sha256(video, 0, CHUNK),
+                new ByteArrayInputStream(garbage), identity)).isInstanceOf(IllegalArgumentException.class);
+
+        Lesson completed = uploadService.complete(lesson.getId(), status.id(), identity);
+        assertThat(completed.getVideoBlob()).isEqualTo(sha256(video, 0, video.length));
+        assertThat(Files.readAllBytes(blobStore.path(completed.getVideoBlob()))).isEqualTo(video);
+
+        assertThatThrownBy(() -> send(lesson, status.id(), video, 1, identity)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(uploadService.complete(lesson.getId(), status.id(), identity).getVideoBlob()).isEqualTo(completed.getVideoBlob());
+    }
+
+    @Test
+    void completeRejectsMissingChunks() throws Exception {
+        String prefix = "upload-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        Course course = courseRepository.save(new Course(null, "Uploads", "", BigDecimal.ONE, instructor));
+        Lesson lesson = lessonRepository.save(new Lesson(null, "Video", "", null, 1, course));
+        CurrentUserIdentity identity = CurrentUserIdentity.of(instructor);
+
+        byte[] video = new byte[2 * CHUNK];
+        new Random(8).nextBytes(video);
+        UploadStatus status = start(course, lesson, video.length, identity);
+        send(lesson, status.id(), video, 1, identity);
+
+        assertThatThrownBy(() -> uploadService.complete(lesson.getId(), status.id(), identity))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Still open for the missing chunk
+        send(lesson, status.id(), video, 0, identity);
+        assertThat(uploadService.complete(lesson.getId(), status.id(), identity).getVideoBlob())
+                .isEqualTo(sha256(video, 0, video.length));
+    }
+
+    // Over HTTP, so each PUT has its own open-in-view persistence context holding the session
+    @Test
+    void parallelChunkPutsAreAllRecorded() throws Exception {
+        String prefix = "upload-" + UUID.randomUUID() + "-";
+        User instructor = userRepository.save(new User(null, prefix + "instructor@example.com", "x", "Ina", "Str", User.Role.INSTRUCTOR));
+        Course course = courseRepository.save(new Course(null, "Uploads", "", BigDecimal.ONE, instructor));
+        Lesson lesson = lessonRepository.save(new Lesson(null, "Video", "", null, 1, course));
+        CurrentUserIdentity identity = CurrentUserIdentity.of(instructor);
+        String token = "Bearer " + jwtUtil.generateToken(instructor.getId(), instructor.getEmail(), List.of("ROLE_INSTRUCTOR"));
+
+        byte[] video = new byte[16 * CHUNK];
+        new Random(9).nextBytes(video);
+        UploadStatus status = start(course, lesson, video.length, identity);
+        String base = "http://localhost:" + port + "/api/courses/" + course.getId() + "/lessons/" + lesson.getId() + "/uploads/" + status.id();
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<HttpResponse<String>>> puts = new ArrayList<>();
+            for (int i = 0; i < status.chunkCount(); i++) {
+                int from = i * CHUNK;
+                byte[] chunk = Arrays.copyOfRange(video, from, from + CHUNK);
+                HttpRequest request = HttpRequest.newBuilder(URI.create(base + "?offset=" + from))
+                        .header("Authorization", token)
+                        .header("X-Chunk-SHA256", sha256(chunk, 0, chunk.length))
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(chunk))
+                        .build();
+                puts.add(pool.submit(() -> client.send(request, HttpResponse.BodyHandlers.ofString())));
+            }
+            for (Future<HttpResponse<String>> put : puts) {
+                assertThat(put.get(30, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(uploadService.getStatus(lesson.getId(), status.id(), identity).receivedChunks()).isEqualTo(status.chunkCount());
+        Lesson completed = uploadService.complete(lesson.getId(), status.id(), identity);
+        assertThat(Files.readAllBytes(blobStore.path(completed.getVideoBlob()))).isEqualTo(video);
+    }
+
+    // Lazy course/instructor lookups; requests get these from open-session-in-view
+    private UploadStatus start(Course course, Lesson lesson, long size, CurrentUserIdentity identity) {
+        return transactionTemplate.execute(tx -> {
+            try {
+                return uploadService.start(course.getId(), lesson.getId(), new UploadInitRequest("talk.mp4", size, CHUNK), identity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private UploadStatus.ChunkReceipt send(Lesson lesson, String uploadId, byte[] video, int index,
+                                           CurrentUserIdentity identity) throws Exception {
+        int from = index * CHUNK;
+        int to = Math.min(video.length, from + CHUNK);
+        return uploadService.writeChunk(lesson.getId(), uploadId, from, sha256(video, from, to - from),
+                new ByteArrayInputStream(Arrays.copyOfRange(video, from, to)), identity);
+    }
+
+    private static String sha256(byte[] bytes, int offset, int length) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(bytes, offset, length);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
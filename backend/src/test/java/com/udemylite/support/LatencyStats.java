@@ -0,0 +1,38 @@
+package com.udemylite.support;
+
+import java.util.Arrays;
+
+/**
+ * Percentiles over a set of measured durations, for the benchmark printouts.
+ */
+public record LatencyStats(int samples, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos, double meanNanos) {
+
+    public static LatencyStats of(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (long n : sorted) {
+            sum += n;
+        }
+        return new LatencyStats(sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[sorted.length - 1], sum / sorted.length);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%s p50=%s p90=%s p99=%s max=%s", samples,
+                format(meanNanos), format(p50Nanos), format(p90Nanos), format(p99Nanos), format(maxNanos));
+    }
+
+    private static String format(double nanos) {
+        if (nanos >= 1_000_000) {
+            return String.format("%.2fms", nanos / 1_000_000);
+        }
+        return String.format("%.1fus", nanos / 1_000);
+    }
+}
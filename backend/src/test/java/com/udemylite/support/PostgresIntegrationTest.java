@@ -0,0 +1,52 @@
+package com.udemylite.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Base for tests that need the real database: boots the application on a random port against an
+ * embedded PostgreSQL started once per JVM, with the schema created by Hibernate as in production.
+ * Media is stored under a temporary app.media.root.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.udemylite=INFO",
+        "app.rate-limit.enabled=false"
+})
+public abstract class PostgresIntegrationTest {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+    protected static final Path MEDIA_ROOT = createMediaRoot();
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> POSTGRES.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("app.media.root", MEDIA_ROOT::toString);
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start embedded PostgreSQL", e);
+        }
+    }
+
+    private static Path createMediaRoot() {
+        try {
+            return Files.createTempDirectory("udemylite-media");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create media root", e);
+        }
+    }
+}
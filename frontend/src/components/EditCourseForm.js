@@ -11,7 +11,8 @@ const EditCourseForm = () => {
   const [course, setCourse] = useState({
     title: '',
     description: '',
-    price: ''
+    price: '',
+    category: ''
   });
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
@@ -23,7 +24,8 @@ const EditCourseForm = () => {
         setCourse({
           title: response.data.title,
           description: response.data.description,
-          price: response.data.price
+          price: response.data.price,
+          category: response.data.category || ''
         });
       } catch (error) {
         console.error('Error fetching course:', error);
@@ -97,6 +99,14 @@ const EditCourseForm = () => {
             required
             sx={{ mb: 2 }}
           />
+          <TextField
+            fullWidth
+            label="Category"
+            name="category"
+            value={course.category}
+            onChange={handleChange}
+            sx={{ mb: 2 }}
+          />
           <TextField
             fullWidth
             label="Price"
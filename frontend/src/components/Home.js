@@ -1,34 +1,68 @@
-import React, { useState, useEffect } from 'react';
-import { Container, Grid, Typography, TextField, InputAdornment } from '@mui/material';
+import React, { useState, useEffect, useRef } from 'react';
+import { Container, Grid, Typography, TextField, InputAdornment, Button, Box } from '@mui/material';
 import SearchIcon from '@mui/icons-material/Search';
 import axios from 'axios';
 import CourseCard from './CourseCard';
 
+const PAGE_SIZE = 30;
+
+// Catalog pages follow the keyset cursor; search pages are numbered
+const fetchPage = async (term, next) => {
+  if (term.trim()) {
+    const page = next ? next.page : 0;
+    const { data } = await axios.get('/api/courses/search', { params: { q: term, page, size: PAGE_SIZE } });
+    return { items: data.items, next: (page + 1) * data.size < data.total ? { page: page + 1 } : null };
+  }
+  const { data } = await axios.get('/api/courses', { params: { size: PAGE_SIZE, cursor: next?.cursor } });
+  return { items: data.items, next: data.nextCursor ? { cursor: data.nextCursor } : null };
+};
+
 const Home = () => {
   const [courses, setCourses] = useState([]);
+  const [next, setNext] = useState(null);
   const [searchTerm, setSearchTerm] = useState('');
   const [loading, setLoading] = useState(true);
+  const currentTerm = useRef(searchTerm);
+  currentTerm.current = searchTerm;
 
   useEffect(() => {
-    fetchCourses();
-  }, []);
+    // Replies for an earlier search term may arrive after this one's; only the current term's are shown
+    let cancelled = false;
+    const fetchCourses = async () => {
+      try {
+        const page = await fetchPage(searchTerm, null);
+        if (cancelled) return;
+        setCourses(page.items);
+        setNext(page.next);
+      } catch (error) {
+        console.error('Error fetching courses:', error);
+      } finally {
+        if (!cancelled) setLoading(false);
+      }
+    };
+
+    // Search runs on the server; wait for a pause in typing before querying
+    const timer = setTimeout(fetchCourses, searchTerm ? 250 : 0);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [searchTerm]);
 
-  const fetchCourses = async () => {
+  const loadMoreCourses = async () => {
+    const term = searchTerm;
     try {
-      const response = await axios.get('/api/courses');
-      setCourses(response.data);
+      const page = await fetchPage(term, next);
+      // The search term changed while this page was loading
+      if (currentTerm.current !== term) return;
+      setCourses((current) => [...current, ...page.items]);
+      setNext(page.next);
     } catch (error) {
       console.error('Error fetching courses:', error);
-    } finally {
-      setLoading(false);
+      setNext(null);
     }
   };
 
-  const filteredCourses = courses.filter(course =>
-    course.title.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    course.description.toLowerCase().includes(searchTerm.toLowerCase())
-  );
-
   if (loading) {
     return <Typography>Loading courses...</Typography>;
   }
@@ -63,14 +97,20 @@ const Home = () => {
       </Typography>
 
       <Grid container spacing={3}>
-        {filteredCourses.map((course) => (
+        {courses.map((course) => (
           <Grid item key={course.id} xs={12} sm={6} md={4}>
             <CourseCard course={course} />
           </Grid>
         ))}
       </Grid>
 
-      {filteredCourses.length === 0 && (
+      {next && (
+        <Box sx={{ mt: 4, textAlign: 'center' }}>
+          <Button onClick={loadMoreCourses}>Load more</Button>
+        </Box>
+      )}
+
+      {courses.length === 0 && (
         <Typography variant="body1" color="text.secondary" sx={{ mt: 4 }}>
           No courses found matching your search.
         </Typography>
@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from 'react';
-import { Container, Typography, Paper, Box, Avatar, List, ListItem, ListItemText, Divider } from '@mui/material';
+import { Container, Typography, Paper, Box, Avatar, List, ListItem, ListItemText, Divider, Button } from '@mui/material';
 import { useAuth } from '../context/AuthContext';
 import { useNavigate } from 'react-router-dom';
 import axios from 'axios';
@@ -10,6 +10,7 @@ const Profile = () => {
   const [profile, setProfile] = useState(null);
   const [enrollments, setEnrollments] = useState([]);
   const [instructorEnrollments, setInstructorEnrollments] = useState([]);
+  const [instructorCursor, setInstructorCursor] = useState(null);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
@@ -25,7 +26,8 @@ const Profile = () => {
 
         setProfile(profileRes.data);
         setEnrollments(studentRes.data);
-        setInstructorEnrollments(instructorRes.data);
+        setInstructorEnrollments(instructorRes.data.items);
+        setInstructorCursor(instructorRes.data.nextCursor);
       } catch (error) {
         console.error('Error fetching profile data:', error);
       } finally {
@@ -36,6 +38,16 @@ const Profile = () => {
     fetchProfileData();
   }, [user]);
 
+  const loadMoreInstructorEnrollments = async () => {
+    try {
+      const response = await axios.get('/api/enrollments/instructor', { params: { cursor: instructorCursor } });
+      setInstructorEnrollments((current) => [...current, ...response.data.items]);
+      setInstructorCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error('Error fetching enrollments:', error);
+    }
+  };
+
   if (!user) {
     return (
       <Container maxWidth="md" sx={{ mt: 4 }}>
@@ -168,6 +180,9 @@ const Profile = () => {
                   ))}
                 </List>
               )}
+              {instructorCursor && (
+                <Button onClick={loadMoreInstructorEnrollments}>Load more</Button>
+              )}
             </Box>
           </>
         )}